@@ -1,5 +1,6 @@
 package com.ggk911.springtest01;
 
+import com.ggk911.springtest01.util.SecurityProviderUtil;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -11,6 +12,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class SpringTest01Application {
 
     public static void main(String[] args) {
+        // 启动时注册一次BouncyCastle提供者
+        SecurityProviderUtil.init();
         SpringApplication.run(SpringTest01Application.class, args);
     }
 
@@ -0,0 +1,32 @@
+package com.ggk911.springtest01.config.pool;
+
+import com.ggk911.springtest01.config.properties.ExecutorConfig;
+import com.ggk911.springtest01.util.executor.ExecutorRegistry;
+import com.ggk911.springtest01.util.executor.ExecutorType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 异步请求执行器
+ * 返回Callable/StreamingResponseBody的接口(文件接口)在storage执行器上执行，请求线程立即归还Tomcat
+ * 虚拟线程模式下每个请求一个虚拟线程，在途请求数不再受线程池大小限制
+ * 默认超时async-request-timeout-millis作用于上传、预览、删除、查询；下载使用单独的download-timeout-millis，见FileController
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-08 10:10
+ **/
+@Configuration
+@RequiredArgsConstructor
+public class AsyncRequestConfig implements WebMvcConfigurer {
+    private final ExecutorRegistry executorRegistry;
+    private final ExecutorConfig executorConfig;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(executorRegistry.executor(ExecutorType.STORAGE)));
+        configurer.setDefaultTimeout(executorConfig.getAsyncRequestTimeoutMillis());
+    }
+}
@@ -0,0 +1,81 @@
+package com.ggk911.springtest01.config.pool;
+
+import com.ggk911.springtest01.config.properties.ExecutorConfig;
+import com.ggk911.springtest01.util.executor.ExecutorRegistry;
+import com.ggk911.springtest01.util.executor.ExecutorType;
+import com.ggk911.springtest01.util.executor.MeteredThreadPoolExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 线程池查看与调整
+ * GET /actuator/executors 查看全部；POST /actuator/executors/{name} {"corePoolSize":8,"maxPoolSize":16} 调整线程数
+ * 调整需开启executor.endpoint-write-enabled，否则返回403
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-07 10:50
+ **/
+@Component
+@Endpoint(id = "executors")
+@RequiredArgsConstructor
+public class ExecutorEndpoint {
+    private final ExecutorRegistry executorRegistry;
+    private final ExecutorConfig executorConfig;
+
+    @ReadOperation
+    public Map<String, Object> executors() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        for (ExecutorType type : ExecutorType.values()) {
+            res.put(type.getCode(), describe(executorRegistry.get(type)));
+        }
+        return res;
+    }
+
+    @ReadOperation
+    public Map<String, Object> executor(@Selector String name) {
+        ExecutorType type = ExecutorType.getEnumByCode(name);
+        return type == null ? null : describe(executorRegistry.get(type));
+    }
+
+    /**
+     * 调整线程数，未传的保持不变
+     */
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> resize(@Selector String name, @Nullable Integer corePoolSize, @Nullable Integer maxPoolSize) {
+        if (!executorConfig.isEndpointWriteEnabled()) {
+            return new WebEndpointResponse<>(HttpStatus.FORBIDDEN.value());
+        }
+        ExecutorType type = ExecutorType.getEnumByCode(name);
+        if (type == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        MeteredThreadPoolExecutor executor = executorRegistry.get(type);
+        executorRegistry.resize(type,
+                corePoolSize == null ? executor.getCorePoolSize() : corePoolSize,
+                maxPoolSize == null ? executor.getMaximumPoolSize() : maxPoolSize);
+        return new WebEndpointResponse<>(describe(executor));
+    }
+
+    private Map<String, Object> describe(MeteredThreadPoolExecutor executor) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("corePoolSize", executor.getCorePoolSize());
+        res.put("maxPoolSize", executor.getMaximumPoolSize());
+        res.put("poolSize", executor.getPoolSize());
+        res.put("activeCount", executor.getActiveCount());
+        res.put("queueSize", executor.getQueueSize());
+        res.put("queueCapacity", executor.getQueueCapacity());
+        res.put("rejectedCount", executor.getRejectedCount());
+        res.put("completedCount", executor.getCompletedTaskCount());
+        return res;
+    }
+}
@@ -1,40 +0,0 @@
-package com.ggk911.springtest01.config.pool;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-
-import java.util.concurrent.ThreadPoolExecutor;
-
-/**
- * 发送邮箱线程池
- *
- * @author TangHaoKai
- * @version V1.0 2023-11-21 16:41
- **/
-@Configuration
-@EnableAsync
-public class SendEmailThreadPool {
-
-    @Bean("SendEmailThreadPool")
-    public TaskExecutor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        // 设置核心线程数
-        executor.setCorePoolSize(5);
-        // 设置最大线程数
-        executor.setMaxPoolSize(10);
-        // 设置队列容量
-        executor.setQueueCapacity(100);
-        // 设置线程活跃时间（秒）
-        executor.setKeepAliveSeconds(60);
-        // 设置默认线程名称
-        executor.setThreadNamePrefix("Thread-SendEmail");
-        // 设置拒绝策略
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        // 等待所有任务结束后再关闭线程池
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        return executor;
-    }
-}
@@ -0,0 +1,27 @@
+package com.ggk911.springtest01.config.pool;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * 批量验签线程池(fork-join，并行度与核数一致)
+ * 并行流需在ForkJoinPool中执行才不占用公共池，而ExecutorRegistry只管理可调整线程数、有界队列的ThreadPoolExecutor，故单独配置
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-29 09:50
+ **/
+@Configuration
+public class SignVerifyThreadPool {
+
+    @Bean(value = "SignVerifyThreadPool", destroyMethod = "shutdown")
+    public ForkJoinPool forkJoinPool() {
+        return new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Thread-SignVerify-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ggk911.springtest01.config.properties;
+
+import com.ggk911.springtest01.util.bulkhead.BulkheadRegistry;
+import com.ggk911.springtest01.util.bulkhead.BulkheadType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 舱壁配置
+ * key为BulkheadType的code：pdf、seal、word、aspose
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-18 11:02
+ **/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "bulkhead")
+public class BulkheadConfig {
+
+    /**
+     * 各类型舱壁参数
+     */
+    private Map<String, Limit> limits = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        /**
+         * 最大并发数
+         */
+        private int maxConcurrent;
+
+        /**
+         * 最大排队数
+         */
+        private int maxQueue;
+
+        /**
+         * 排队最长等待毫秒
+         */
+        private long maxWaitMillis;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (Map.Entry<String, Limit> entry : limits.entrySet()) {
+            BulkheadType type = BulkheadType.getEnumByCode(entry.getKey());
+            if (type == null) {
+                throw new IllegalArgumentException("未知舱壁类型：" + entry.getKey());
+            }
+            Limit limit = entry.getValue();
+            BulkheadRegistry.configure(type, limit.getMaxConcurrent(), limit.getMaxQueue(), limit.getMaxWaitMillis());
+        }
+    }
+
+    @Bean
+    public MeterBinder bulkheadMetrics() {
+        return registry -> {
+            for (BulkheadType type : BulkheadType.values()) {
+                Gauge.builder("bulkhead.active", () -> BulkheadRegistry.get(type).getActiveCount())
+                        .tag("bulkhead", type.getCode())
+                        .register(registry);
+                Gauge.builder("bulkhead.queued", () -> BulkheadRegistry.get(type).getQueuedCount())
+                        .tag("bulkhead", type.getCode())
+                        .register(registry);
+                Gauge.builder("bulkhead.max.concurrent", () -> BulkheadRegistry.get(type).getMaxConcurrent())
+                        .tag("bulkhead", type.getCode())
+                        .register(registry);
+                FunctionCounter.builder("bulkhead.calls", type, t -> BulkheadRegistry.get(t).getAcceptedCount().get())
+                        .tag("bulkhead", type.getCode())
+                        .tag("result", "accepted")
+                        .register(registry);
+                FunctionCounter.builder("bulkhead.calls", type, t -> BulkheadRegistry.get(t).getRejectedCount().get())
+                        .tag("bulkhead", type.getCode())
+                        .tag("result", "rejected")
+                        .register(registry);
+            }
+        };
+    }
+}
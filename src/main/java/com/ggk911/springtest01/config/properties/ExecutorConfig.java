@@ -0,0 +1,127 @@
+package com.ggk911.springtest01.config.properties;
+
+import com.ggk911.springtest01.util.executor.ExecutorRegistry;
+import com.ggk911.springtest01.util.executor.ExecutorType;
+import com.ggk911.springtest01.util.executor.MeteredThreadPoolExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池配置
+ * key为ExecutorType的code：email、storage、cert
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-07 10:20
+ **/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "executor")
+public class ExecutorConfig {
+
+    /**
+     * 各类型线程池参数，未配置的使用ExecutorType中的默认值
+     */
+    private Map<String, Pool> pools = new HashMap<>();
+
+    /**
+     * 阻塞IO类任务(email、storage)是否改用虚拟线程，需JDK 21+，低版本JDK仍使用线程池
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * 异步请求(文件接口)超时毫秒
+     */
+    private long asyncRequestTimeoutMillis = 120_000;
+
+    /**
+     * 文件下载(边读边写)超时毫秒，小于等于0不超时；大文件下载耗时取决于客户端网速，不受async-request-timeout-millis限制
+     */
+    private long downloadTimeoutMillis = -1;
+
+    /**
+     * 是否允许通过 POST /actuator/executors/{name} 调整线程数，端点无鉴权，默认关闭(只读)
+     */
+    private boolean endpointWriteEnabled = false;
+
+    @Getter
+    @Setter
+    public static class Pool {
+        /**
+         * 核心线程数
+         */
+        private int corePoolSize;
+
+        /**
+         * 最大线程数
+         */
+        private int maxPoolSize;
+
+        /**
+         * 队列容量，0表示不排队
+         */
+        private int queueCapacity;
+
+        /**
+         * 线程活跃时间(秒)
+         */
+        private long keepAliveSeconds = 60;
+
+        /**
+         * 队列满时是否由提交线程执行，否则直接拒绝
+         */
+        private boolean callerRuns = true;
+    }
+
+    /**
+     * 线程池指标，前缀app.executor，避免与Spring Boot为ThreadPoolTaskExecutor注册的executor.*(name标签)重名
+     */
+    @Bean
+    public MeterBinder executorMetrics(ExecutorRegistry executorRegistry) {
+        return registry -> {
+            Gauge.builder("app.executor.virtual.active", executorRegistry, ExecutorRegistry::getVirtualActive)
+                    .register(registry);
+            for (ExecutorType type : ExecutorType.values()) {
+                MeteredThreadPoolExecutor executor = executorRegistry.get(type);
+                Gauge.builder("app.executor.queued", executor, MeteredThreadPoolExecutor::getQueueSize)
+                        .tag("pool", type.getCode())
+                        .register(registry);
+                Gauge.builder("app.executor.active", executor, MeteredThreadPoolExecutor::getActiveCount)
+                        .tag("pool", type.getCode())
+                        .register(registry);
+                Gauge.builder("app.executor.pool.size", executor, MeteredThreadPoolExecutor::getPoolSize)
+                        .tag("pool", type.getCode())
+                        .register(registry);
+                Gauge.builder("app.executor.pool.core", executor, MeteredThreadPoolExecutor::getCorePoolSize)
+                        .tag("pool", type.getCode())
+                        .register(registry);
+                Gauge.builder("app.executor.pool.max", executor, MeteredThreadPoolExecutor::getMaximumPoolSize)
+                        .tag("pool", type.getCode())
+                        .register(registry);
+                FunctionCounter.builder("app.executor.rejected", executor, MeteredThreadPoolExecutor::getRejectedCount)
+                        .tag("pool", type.getCode())
+                        .register(registry);
+                // 平均耗时取 rate(sum)/rate(count)
+                FunctionTimer.builder("app.executor.task.wait", executor, MeteredThreadPoolExecutor::getExecutedCount,
+                                MeteredThreadPoolExecutor::getWaitMillis, TimeUnit.MILLISECONDS)
+                        .tag("pool", type.getCode())
+                        .register(registry);
+                FunctionTimer.builder("app.executor.task.execution", executor, MeteredThreadPoolExecutor::getExecutedCount,
+                                MeteredThreadPoolExecutor::getExecutionMillis, TimeUnit.MILLISECONDS)
+                        .tag("pool", type.getCode())
+                        .register(registry);
+            }
+        };
+    }
+}
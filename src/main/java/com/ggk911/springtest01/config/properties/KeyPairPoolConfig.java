@@ -0,0 +1,120 @@
+package com.ggk911.springtest01.config.properties;
+
+import com.ggk911.springtest01.util.CsrUtil;
+import com.ggk911.springtest01.util.KeyPairPool;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSR密钥对预生成池配置
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-22 16:05
+ **/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "csr.key-pair-pool")
+public class KeyPairPoolConfig {
+
+    /**
+     * 是否启用，不启用时CSR请求现场生成密钥对
+     */
+    private boolean enabled = true;
+
+    /**
+     * RSA-2048
+     */
+    private Watermark rsa = new Watermark(8, 32, 2);
+
+    /**
+     * SM2
+     */
+    private Watermark sm2 = new Watermark(16, 64, 1);
+
+    private final List<KeyPairPool> pools = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Watermark {
+        /**
+         * 低水位
+         */
+        private int low;
+
+        /**
+         * 高水位
+         */
+        private int high;
+
+        /**
+         * 补充线程数
+         */
+        private int threads;
+
+        public Watermark() {
+        }
+
+        public Watermark(int low, int high, int threads) {
+            this.low = low;
+            this.high = high;
+            this.threads = threads;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        KeyPairPool rsaPool = new KeyPairPool("rsa", rsa.getLow(), rsa.getHigh(), rsa.getThreads(), () -> CsrUtil.newKeyPairGenerator(true));
+        KeyPairPool sm2Pool = new KeyPairPool("sm2", sm2.getLow(), sm2.getHigh(), sm2.getThreads(), () -> CsrUtil.newKeyPairGenerator(false));
+        rsaPool.start();
+        sm2Pool.start();
+        CsrUtil.setKeyPairPool(true, rsaPool);
+        CsrUtil.setKeyPairPool(false, sm2Pool);
+        pools.add(rsaPool);
+        pools.add(sm2Pool);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        CsrUtil.setKeyPairPool(true, null);
+        CsrUtil.setKeyPairPool(false, null);
+        pools.forEach(KeyPairPool::stop);
+    }
+
+    @Bean
+    public MeterBinder keyPairPoolMetrics() {
+        return registry -> {
+            for (KeyPairPool pool : pools) {
+                Gauge.builder("csr.key.pool.depth", pool, KeyPairPool::getDepth)
+                        .tag("algorithm", pool.getName())
+                        .register(registry);
+                // 补充速率取rate(csr_key_pool_generated_total)
+                FunctionCounter.builder("csr.key.pool.generated", pool, KeyPairPool::getGeneratedCount)
+                        .tag("algorithm", pool.getName())
+                        .register(registry);
+                FunctionCounter.builder("csr.key.pool.takes", pool, KeyPairPool::getHitCount)
+                        .tag("algorithm", pool.getName())
+                        .tag("result", "hit")
+                        .register(registry);
+                FunctionCounter.builder("csr.key.pool.takes", pool, KeyPairPool::getMissCount)
+                        .tag("algorithm", pool.getName())
+                        .tag("result", "miss")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.ggk911.springtest01.config.properties;
+
+import com.ggk911.springtest01.service.impl.MailOutboxServiceImpl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 邮件发件箱配置
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-05 11:00
+ **/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "mail.outbox")
+public class MailOutboxConfig {
+
+    /**
+     * 是否启用调度发送，关闭时只落库不发送
+     */
+    private boolean enabled = true;
+
+    /**
+     * 轮询间隔(毫秒)
+     */
+    private long pollIntervalMillis = 1000;
+
+    /**
+     * 每次认领数量
+     */
+    private int batchSize = 50;
+
+    /**
+     * 最大尝试次数，超过后置为失败
+     */
+    private int maxAttempts = 8;
+
+    /**
+     * 首次重试间隔(毫秒)，之后每次翻倍
+     */
+    private long backoffBaseMillis = 30_000;
+
+    /**
+     * 最大重试间隔(毫秒)
+     */
+    private long backoffMaxMillis = 3_600_000;
+
+    /**
+     * 认领租约(毫秒)，发送中超过此时间未完成的重新放回待发送
+     */
+    private long leaseMillis = 300_000;
+
+    @Bean
+    public MeterBinder mailOutboxMetrics(MailOutboxServiceImpl mailOutboxService) {
+        return registry -> {
+            FunctionCounter.builder("mail.outbox.messages", mailOutboxService, MailOutboxServiceImpl::getEnqueuedCount)
+                    .tag("result", "enqueued")
+                    .register(registry);
+            FunctionCounter.builder("mail.outbox.messages", mailOutboxService, MailOutboxServiceImpl::getSentCount)
+                    .tag("result", "sent")
+                    .register(registry);
+            FunctionCounter.builder("mail.outbox.messages", mailOutboxService, MailOutboxServiceImpl::getRetriedCount)
+                    .tag("result", "retried")
+                    .register(registry);
+            FunctionCounter.builder("mail.outbox.messages", mailOutboxService, MailOutboxServiceImpl::getFailedCount)
+                    .tag("result", "failed")
+                    .register(registry);
+            Gauge.builder("mail.outbox.pending", mailOutboxService, MailOutboxServiceImpl::getPendingCount)
+                    .register(registry);
+            // 吞吐量取 rate(count)
+            FunctionTimer.builder("mail.outbox.deliver", mailOutboxService, MailOutboxServiceImpl::getDeliveredCount,
+                            MailOutboxServiceImpl::getDeliverMillis, TimeUnit.MILLISECONDS)
+                    .register(registry);
+        };
+    }
+}
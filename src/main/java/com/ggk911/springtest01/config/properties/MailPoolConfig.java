@@ -0,0 +1,154 @@
+package com.ggk911.springtest01.config.properties;
+
+import cn.hutool.core.util.StrUtil;
+import com.ggk911.springtest01.util.mail.PooledJavaMailSender;
+import com.ggk911.springtest01.util.mail.SmtpTransportPool;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 邮件发送(SMTP连接池)配置
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-01 11:30
+ **/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "mail.pool")
+public class MailPoolConfig {
+
+    private String host = "smtp.163.com";
+
+    private int port = 587;
+
+    private String protocol = "smtp";
+
+    private String username = "";
+
+    private String password = "";
+
+    /**
+     * 发件人，为空时使用username
+     */
+    private String from = "";
+
+    /**
+     * 是否启用STARTTLS
+     */
+    private boolean starttls = true;
+
+    /**
+     * 最大连接数，与发送线程池核心线程数一致
+     */
+    private int maxConnections = 5;
+
+    /**
+     * 最大空闲时间(毫秒)，超过则关闭
+     */
+    private long maxIdleMillis = 60_000;
+
+    /**
+     * 空闲超过此时间(毫秒)的连接借出前发NOOP校验
+     */
+    private long validateAfterIdleMillis = 10_000;
+
+    /**
+     * 等待可用连接的最长时间(毫秒)
+     */
+    private long borrowTimeoutMillis = 30_000;
+
+    /**
+     * 建连超时(毫秒)
+     */
+    private int connectionTimeoutMillis = 10_000;
+
+    /**
+     * 读写超时(毫秒)
+     */
+    private int timeoutMillis = 30_000;
+
+    /**
+     * 批量发送每批邮件数，一批占用一个连接连续发送
+     */
+    private int bulkBatchSize = 200;
+
+    /**
+     * 批量发送总速率(封/秒)，小于等于0不限流
+     */
+    private double bulkRatePerSecond = 20;
+
+    /**
+     * 批量发送不占用的连接数，留给单封发送和发件箱；批量最多同时占用 maxConnections - 此值 个连接(至少1个)
+     */
+    private int bulkReservedConnections = 1;
+
+    /**
+     * 群发共用附件编码结果的内存上限(字节)，超过则放临时文件
+     */
+    private int sharedAttachmentMemoryBytes = 4 * 1024 * 1024;
+
+    /**
+     * 发件人
+     */
+    public String getSender() {
+        return StrUtil.blankToDefault(from, username);
+    }
+
+    @Bean(value = "PooledMailSender", destroyMethod = "destroy")
+    public PooledJavaMailSender pooledMailSender() {
+        PooledJavaMailSender mailSender = new PooledJavaMailSender();
+        mailSender.setHost(host);
+        mailSender.setPort(port);
+        mailSender.setProtocol(protocol);
+        mailSender.setUsername(StrUtil.emptyToNull(username));
+        mailSender.setPassword(StrUtil.emptyToNull(password));
+        mailSender.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        Properties properties = new Properties();
+        properties.setProperty("mail." + protocol + ".auth", String.valueOf(StrUtil.isNotEmpty(username)));
+        properties.setProperty("mail." + protocol + ".starttls.enable", String.valueOf(starttls));
+        properties.setProperty("mail." + protocol + ".connectiontimeout", String.valueOf(connectionTimeoutMillis));
+        properties.setProperty("mail." + protocol + ".timeout", String.valueOf(timeoutMillis));
+        properties.setProperty("mail." + protocol + ".writetimeout", String.valueOf(timeoutMillis));
+        mailSender.setJavaMailProperties(properties);
+        mailSender.initPool(maxConnections, maxIdleMillis, validateAfterIdleMillis, borrowTimeoutMillis);
+        return mailSender;
+    }
+
+    @Bean
+    public MeterBinder mailPoolMetrics(PooledJavaMailSender pooledMailSender) {
+        return registry -> {
+            SmtpTransportPool pool = pooledMailSender.getTransportPool();
+            Gauge.builder("mail.smtp.pool.active", pool, SmtpTransportPool::getActive)
+                    .tag("host", host)
+                    .register(registry);
+            Gauge.builder("mail.smtp.pool.idle", pool, SmtpTransportPool::getIdle)
+                    .tag("host", host)
+                    .register(registry);
+            Gauge.builder("mail.smtp.pool.max", pool, SmtpTransportPool::getMaxConnections)
+                    .tag("host", host)
+                    .register(registry);
+            FunctionCounter.builder("mail.smtp.connections.created", pool, SmtpTransportPool::getCreatedCount)
+                    .tag("host", host)
+                    .register(registry);
+            FunctionCounter.builder("mail.smtp.send.failures", pool, SmtpTransportPool::getFailureCount)
+                    .tag("host", host)
+                    .register(registry);
+            // 平均发送耗时取 rate(sum)/rate(count)
+            FunctionTimer.builder("mail.smtp.send", pool, SmtpTransportPool::getSendCount, SmtpTransportPool::getSendMillis, TimeUnit.MILLISECONDS)
+                    .tag("host", host)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package com.ggk911.springtest01.config.properties;
+
+import com.ggk911.springtest01.util.word.WordConvertCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * doc转docx缓存配置
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-16 14:48
+ **/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "word.convert-cache")
+public class WordConvertCacheConfig {
+
+    /**
+     * 内存缓存最大模板数
+     */
+    private int memoryCapacity = 64;
+
+    /**
+     * 磁盘缓存目录，为空不启用
+     */
+    private String diskDir;
+
+    @PostConstruct
+    public void init() {
+        WordConvertCache.configure(memoryCapacity, diskDir);
+    }
+
+    @Bean
+    public MeterBinder wordConvertCacheMetrics() {
+        return registry -> {
+            FunctionCounter.builder("word.convert.cache.requests", WordConvertCache.class, c -> WordConvertCache.getMemoryHits())
+                    .tag("result", "memory_hit")
+                    .register(registry);
+            FunctionCounter.builder("word.convert.cache.requests", WordConvertCache.class, c -> WordConvertCache.getDiskHits())
+                    .tag("result", "disk_hit")
+                    .register(registry);
+            FunctionCounter.builder("word.convert.cache.requests", WordConvertCache.class, c -> WordConvertCache.getCoalesced())
+                    .tag("result", "coalesced")
+                    .register(registry);
+            FunctionCounter.builder("word.convert.cache.requests", WordConvertCache.class, c -> WordConvertCache.getMisses())
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("word.convert.cache.size", WordConvertCache::getMemorySize)
+                    .register(registry);
+        };
+    }
+}
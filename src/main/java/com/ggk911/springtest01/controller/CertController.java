@@ -4,9 +4,14 @@ import com.ggk911.springtest01.service.impl.CertServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
 /**
  * 证书
  *
@@ -31,6 +36,40 @@ public class CertController {
         return certService.createP10(isRsaNotEcc, sn);
     }
 
+    /**
+     * 批量构造P10（csr请求），NDJSON流式返回
+     *
+     * @param isRsaNotEcc RSA OR SM2 ？
+     * @param sns         序列号列表(逗号分隔)
+     * @param keyPwd      私钥加密口令
+     * @param response    响应
+     */
+    @PostMapping("/cert/batchCreateP10")
+    public void batchCreateP10(boolean isRsaNotEcc,
+                               @RequestParam("sns") List<String> sns,
+                               @RequestParam("keyPwd") String keyPwd,
+                               HttpServletResponse response) {
+        certService.batchCreateP10(isRsaNotEcc, sns, keyPwd, response);
+    }
+
+    /**
+     * 批量检查证书，流式返回报告(subject、序列号、有效期、算法、颁发者)
+     *
+     * @param zipFile  证书ZIP包
+     * @param prefix   MinIO对象前缀，zipFile为空时使用
+     * @param pwd      PFX密码
+     * @param format   输出格式：csv/ndjson，默认ndjson
+     * @param response 响应
+     */
+    @PostMapping("/cert/bulkInspect")
+    public void bulkInspect(@RequestParam(value = "zipFile", required = false) MultipartFile zipFile,
+                            @RequestParam(value = "prefix", required = false) String prefix,
+                            @RequestParam(value = "pwd", required = false) String pwd,
+                            @RequestParam(value = "format", required = false) String format,
+                            HttpServletResponse response) {
+        certService.bulkInspect(zipFile, prefix, pwd, format, response);
+    }
+
     /**
      * HEX解码
      *
@@ -97,6 +136,54 @@ public class CertController {
         return certService.base64ToHex(base64);
     }
 
+    /**
+     * HEX编码(流式)，请求体为原始数据
+     */
+    @PostMapping("/cert/stream/hexEncode")
+    public void streamHexEncode(HttpServletRequest request, HttpServletResponse response) {
+        certService.streamTranscode("raw", "hex", request, response);
+    }
+
+    /**
+     * HEX解码(流式)，请求体为HEX
+     */
+    @PostMapping("/cert/stream/hexDecode")
+    public void streamHexDecode(HttpServletRequest request, HttpServletResponse response) {
+        certService.streamTranscode("hex", "raw", request, response);
+    }
+
+    /**
+     * BASE64编码(流式)，请求体为原始数据
+     */
+    @PostMapping("/cert/stream/base64Encode")
+    public void streamBase64Encode(HttpServletRequest request, HttpServletResponse response) {
+        certService.streamTranscode("raw", "base64", request, response);
+    }
+
+    /**
+     * BASE64解码(流式)，请求体为BASE64
+     */
+    @PostMapping("/cert/stream/base64Decode")
+    public void streamBase64Decode(HttpServletRequest request, HttpServletResponse response) {
+        certService.streamTranscode("base64", "raw", request, response);
+    }
+
+    /**
+     * HEX编码转BASE64编码(流式)
+     */
+    @PostMapping("/cert/stream/hexToBase64")
+    public void streamHexToBase64(HttpServletRequest request, HttpServletResponse response) {
+        certService.streamTranscode("hex", "base64", request, response);
+    }
+
+    /**
+     * BASE64编码转HEX编码(流式)
+     */
+    @PostMapping("/cert/stream/base64ToHex")
+    public void streamBase64ToHex(HttpServletRequest request, HttpServletResponse response) {
+        certService.streamTranscode("base64", "hex", request, response);
+    }
+
     /**
      * 解析PFX信息
      *
@@ -4,11 +4,13 @@ import com.ggk911.springtest01.service.impl.CommonServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletResponse;
+import java.util.List;
 
 /**
  * 通用
@@ -54,6 +56,17 @@ public class CommonController {
         return commonService.verifySignValue(pubKey, reqHead, reqBody, signValue);
     }
 
+    /**
+     * 批量验签
+     *
+     * @param params 验签参数列表(pubKey, reqHead, reqBody, signValue)
+     * @return 验签结果，顺序与入参一致
+     */
+    @PostMapping(value = "/common/batchVerifySignValue")
+    public Object batchVerifySignValue(@RequestBody List<CommonServiceImpl.VerifySignParam> params) {
+        return commonService.batchVerifySignValue(params);
+    }
+
     /**
      * 生成个人方章
      *
@@ -102,4 +115,41 @@ public class CommonController {
     public Object pdfParams(MultipartFile pdfFile) {
         return commonService.pdfParams(pdfFile);
     }
+
+    /**
+     * 读取WORD模板变量
+     *
+     * @param wordFile word文件
+     * @return 段落变量及明细表格变量
+     */
+    @PostMapping(value = "/common/word/params")
+    public Object wordParams(MultipartFile wordFile) {
+        return commonService.wordParams(wordFile);
+    }
+
+    /**
+     * 填充WORD模板并直出PDF
+     *
+     * @param wordFile        word模板
+     * @param params          段落及普通表格参数JSON
+     * @param detailTableData 明细表格参数JSON
+     * @param response        响应
+     */
+    @PostMapping(value = "/common/word/pdf")
+    public void wordToPdf(MultipartFile wordFile, String params, String detailTableData, HttpServletResponse response) {
+        commonService.wordToPdf(wordFile, params, detailTableData, response);
+    }
+
+    /**
+     * 填充WORD模板直出PDF并上传
+     *
+     * @param wordFile        word模板
+     * @param params          段落及普通表格参数JSON
+     * @param detailTableData 明细表格参数JSON
+     * @return 文件路径及各阶段耗时
+     */
+    @PostMapping(value = "/common/word/pdf/upload")
+    public Object wordToPdfUpload(MultipartFile wordFile, String params, String detailTableData) {
+        return commonService.wordToPdfUpload(wordFile, params, detailTableData);
+    }
 }
@@ -1,16 +1,23 @@
 package com.ggk911.springtest01.controller;
 
+import com.ggk911.springtest01.config.properties.ExecutorConfig;
 import com.ggk911.springtest01.service.impl.FileServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
 
 /**
+ * 文件接口均为阻塞IO，以异步请求方式在storage执行器上执行，见AsyncRequestConfig
+ *
  * @author TangHaoKai
  * @version V1.0 2023-11-27 15:42
  **/
@@ -19,6 +26,7 @@ import javax.servlet.http.HttpServletResponse;
 @RequiredArgsConstructor
 public class FileController {
     private final FileServiceImpl fileService;
+    private final ExecutorConfig executorConfig;
 
     /**
      * 上传文件
@@ -27,8 +35,8 @@ public class FileController {
      * @return 文件路径
      */
     @PostMapping(value = "/file/upload")
-    public String uploadFile(@RequestParam("file") MultipartFile file) {
-        return fileService.uploadFile(file);
+    public Callable<String> uploadFile(@RequestParam("file") MultipartFile file) {
+        return () -> fileService.uploadFile(file);
     }
 
     /**
@@ -38,20 +46,28 @@ public class FileController {
      * @return 图片链接
      */
     @PostMapping(value = "/file/preview")
-    public String previewImage(@RequestParam("filePath") String filePath) {
-        return fileService.previewImage(filePath);
+    public Callable<String> previewImage(@RequestParam("filePath") String filePath) {
+        return () -> fileService.previewImage(filePath);
     }
 
     /**
-     * 文件下载
+     * 文件下载，边读边写
+     * 使用单独的超时(executor.download-timeout-millis，默认不超时)，大文件不会被异步请求默认超时截断
      *
      * @param filePath 文件路径
      * @param response 响应
+     * @return 下载任务
      */
     @PostMapping(value = "/file/download")
-    public void downloadFile(@RequestParam("filePath") String filePath,
-                             HttpServletResponse response) {
-        fileService.downloadFile(filePath, response);
+    public WebAsyncTask<Void> downloadFile(@RequestParam("filePath") String filePath, HttpServletResponse response) {
+        String fileName = filePath.substring(filePath.lastIndexOf("/") + 1);
+        StreamingResponseBody body = fileService.downloadFile(filePath);
+        return new WebAsyncTask<>(executorConfig.getDownloadTimeoutMillis(), () -> {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment;fileName=" + fileName);
+            body.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
     }
 
     /**
@@ -61,8 +77,8 @@ public class FileController {
      * @return 是否删除
      */
     @PostMapping(value = "/file/remove")
-    public boolean removeFile(@RequestParam("filePath") String filePath) {
-        return fileService.removeFile(filePath);
+    public Callable<Boolean> removeFile(@RequestParam("filePath") String filePath) {
+        return () -> fileService.removeFile(filePath);
     }
 
     /**
@@ -72,7 +88,7 @@ public class FileController {
      * @return 文件名List
      */
     @PostMapping(value = "/file/query")
-    public Object queryFile(@RequestParam("filePath") String filePath) {
-        return fileService.queryFile(filePath);
+    public Callable<Object> queryFile(@RequestParam("filePath") String filePath) {
+        return () -> fileService.queryFile(filePath);
     }
 }
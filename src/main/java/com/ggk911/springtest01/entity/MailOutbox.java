@@ -0,0 +1,145 @@
+package com.ggk911.springtest01.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 邮件发件箱
+ * 发送请求先落库，由调度器认领发送，失败按指数退避重试
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-05 10:10
+ **/
+@Getter
+@Setter
+@Entity
+@Table(name = "mail_outbox", indexes = @Index(name = "idx_mail_outbox_status_next", columnList = "status,next_attempt_at"))
+public class MailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 收件地址
+     */
+    @Column(name = "to_address", nullable = false, length = 1000)
+    private String toAddress;
+
+    /**
+     * 标题
+     */
+    @Column(name = "subject", length = 500)
+    private String subject;
+
+    /**
+     * 内容
+     */
+    @Lob
+    @Column(name = "content")
+    private String content;
+
+    /**
+     * 是否html
+     */
+    @Column(name = "html", nullable = false)
+    private boolean html;
+
+    /**
+     * 附件文件全名
+     */
+    @Column(name = "attachment_name", length = 255)
+    private String attachmentName;
+
+    /**
+     * 附件来源，为null时不带附件
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "attachment_type", length = 16)
+    private AttachmentType attachmentType;
+
+    /**
+     * 附件位置：MinIO对象路径，发送时才读取
+     */
+    @Column(name = "attachment_ref", length = 1000)
+    private String attachmentRef;
+
+    /**
+     * 状态
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    /**
+     * 已尝试次数
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /**
+     * 下次发送时间
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * 认领租约到期时间，发送中状态超过此时间视为认领方已宕机，重新放回待发送
+     */
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    /**
+     * 最近一次失败原因
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public enum Status {
+        /**
+         * 待发送(含等待重试)
+         */
+        PENDING,
+        /**
+         * 已认领发送中
+         */
+        SENDING,
+        /**
+         * 已发送
+         */
+        SENT,
+        /**
+         * 超过最大重试次数
+         */
+        FAILED
+    }
+
+    public enum AttachmentType {
+        /**
+         * 发件箱暂存到MinIO的副本，发送结束后删除
+         */
+        SPOOL,
+        /**
+         * 调用方的MinIO对象
+         */
+        MINIO
+    }
+}
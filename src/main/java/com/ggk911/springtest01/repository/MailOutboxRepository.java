@@ -0,0 +1,92 @@
+package com.ggk911.springtest01.repository;
+
+import com.ggk911.springtest01.entity.MailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 邮件发件箱
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-05 10:30
+ **/
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    /**
+     * 锁定到期待发送的邮件，已被其他事务锁定的行跳过(lock.timeout=-2，MySQL 8生成FOR UPDATE SKIP LOCKED)
+     * 须在事务中调用，并在同一事务内改为发送中
+     *
+     * @param status   状态，传PENDING
+     * @param now      当前时间
+     * @param pageable 数量
+     * @return 待发送邮件
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select o from MailOutbox o where o.status = :status and o.nextAttemptAt <= :now order by o.nextAttemptAt")
+    List<MailOutbox> lockDue(@Param("status") MailOutbox.Status status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * 租约过期的发送中邮件放回待发送
+     *
+     * @param sending 发送中状态
+     * @param pending 待发送状态
+     * @param now     当前时间
+     * @return 数量
+     */
+    @Modifying
+    @Query("update MailOutbox o set o.status = :pending, o.lockedUntil = null where o.status = :sending and o.lockedUntil < :now")
+    int releaseExpired(@Param("sending") MailOutbox.Status sending, @Param("pending") MailOutbox.Status pending, @Param("now") LocalDateTime now);
+
+    /**
+     * 认领：置为发送中并增加尝试次数
+     *
+     * @param ids         邮件ID
+     * @param sending     发送中状态
+     * @param lockedUntil 租约到期时间
+     * @return 数量
+     */
+    @Modifying
+    @Query("update MailOutbox o set o.status = :sending, o.lockedUntil = :lockedUntil, o.attempts = o.attempts + 1 where o.id in :ids")
+    int claim(@Param("ids") List<Long> ids, @Param("sending") MailOutbox.Status sending, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    /**
+     * 记录发送结果，仅当仍持有本次认领的租约时生效
+     * 租约过期后被其他节点重新认领的邮件返回0，不覆盖对方的状态
+     *
+     * @param id            邮件ID
+     * @param sending       发送中状态
+     * @param lease         认领时写入的租约到期时间
+     * @param status        状态
+     * @param nextAttemptAt 下次发送时间
+     * @param lastError     失败原因
+     * @param sentAt        发送时间
+     * @return 数量，0表示租约已失效
+     */
+    @Transactional
+    @Modifying
+    @Query("update MailOutbox o set o.status = :status, o.nextAttemptAt = :nextAttemptAt, o.lastError = :lastError, " +
+            "o.sentAt = :sentAt, o.lockedUntil = null where o.id = :id and o.status = :sending and o.lockedUntil = :lease")
+    int complete(@Param("id") Long id, @Param("sending") MailOutbox.Status sending, @Param("lease") LocalDateTime lease,
+                 @Param("status") MailOutbox.Status status, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                 @Param("lastError") String lastError, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * 按状态计数
+     *
+     * @param status 状态
+     * @return 数量
+     */
+    long countByStatus(MailOutbox.Status status);
+}
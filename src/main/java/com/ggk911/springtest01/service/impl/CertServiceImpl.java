@@ -1,22 +1,57 @@
 package com.ggk911.springtest01.service.impl;
 
-import cn.com.mcsca.extend.SecuEngine;
 import cn.com.mcsca.util.CertUtil;
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.crypto.digest.HmacAlgorithm;
 import cn.hutool.json.JSONObject;
 import com.ggk911.springtest01.util.CsrUtil;
+import com.ggk911.springtest01.util.MinioUtil;
+import com.ggk911.springtest01.util.PfxUtil;
+import com.ggk911.springtest01.util.Sm2SignUtil;
+import com.ggk911.springtest01.util.StreamCodecUtil;
+import com.ggk911.springtest01.util.executor.ExecutorRegistry;
+import com.ggk911.springtest01.util.executor.ExecutorType;
+import com.ggk911.springtest01.util.executor.MeteredThreadPoolExecutor;
+import io.minio.messages.Item;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.asn1.x500.style.BCStyle;
 import org.bouncycastle.util.encoders.Base64;
 import org.bouncycastle.util.encoders.Hex;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 
 /**
@@ -29,6 +64,37 @@ import java.util.Map;
 @Slf4j
 @RequiredArgsConstructor
 public class CertServiceImpl {
+    /**
+     * PFX证书公开信息缓存(不含私钥)，key为HMAC(PFX摘要:密码)，过期时间10分钟
+     */
+    private static final LRUCache<String, Map<String, String>> PFX_CACHE = CacheUtil.newLRUCache(256, 10 * 60 * 1000L);
+
+    /**
+     * PFX缓存key的HMAC密钥，进程内随机生成
+     */
+    private static final byte[] PFX_CACHE_KEY = RandomUtil.randomBytes(32);
+
+    /**
+     * 批量检查的证书文件后缀
+     */
+    private static final String[] CERT_SUFFIXES = {".pfx", ".p12", ".cer", ".crt", ".der", ".pem"};
+
+    /**
+     * 批量检查报告列
+     */
+    private static final String[] INSPECT_COLUMNS = {"name", "subject", "serialNumber", "notBefore", "notAfter", "algorithm", "issuer", "error"};
+
+    /**
+     * 单个证书文件大小上限
+     */
+    private static final int MAX_CERT_FILE_SIZE = 1024 * 1024;
+
+    /**
+     * 证书批处理使用cert线程池(CPU密集)
+     */
+    private final ExecutorRegistry executorRegistry;
+
+    private final MinioUtil minioUtil;
 
     /**
      * 构造PKCS10请求文件CSR
@@ -45,6 +111,277 @@ public class CertServiceImpl {
         return json;
     }
 
+    /**
+     * 批量构造PKCS10请求文件CSR
+     * 按核数并行生成，按完成顺序以NDJSON逐行输出，每行包含序列号、P10及口令加密的私钥
+     *
+     * @param isRsaNotEcc RSA OR SM2
+     * @param sns         序列号列表
+     * @param keyPwd      私钥加密口令
+     * @param response    响应
+     */
+    @SneakyThrows
+    public void batchCreateP10(boolean isRsaNotEcc, List<String> sns, String keyPwd, HttpServletResponse response) {
+        if (StrUtil.isEmpty(keyPwd)) {
+            throw new RuntimeException("私钥加密口令不能为空");
+        }
+        char[] password = keyPwd.toCharArray();
+        response.setContentType("application/x-ndjson;charset=UTF-8");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        Iterator<Callable<JSONObject>> tasks = IntStream.range(0, sns.size())
+                .<Callable<JSONObject>>mapToObj(index -> () -> createP10Line(isRsaNotEcc, index, sns.get(index), password))
+                .iterator();
+        writeInParallel(tasks, JSONObject::toString, writer);
+        writer.close();
+        log.info("批量构造P10完成，数量：{}", sns.size());
+    }
+
+    /**
+     * 批量检查证书，来源为ZIP包或MinIO前缀，并行解析后按完成顺序流式输出报告
+     * ZIP按条目顺序读取，MinIO按对象逐个下载，不会整体加载到内存
+     *
+     * @param zipFile  证书ZIP包(.pfx/.p12/.cer/.crt/.der/.pem)
+     * @param prefix   MinIO对象前缀，zipFile为空时使用
+     * @param pwd      PFX密码
+     * @param format   输出格式：csv/ndjson，默认ndjson
+     * @param response 响应
+     */
+    @SneakyThrows
+    public void bulkInspect(MultipartFile zipFile, String prefix, String pwd, String format, HttpServletResponse response) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        Iterator<Callable<String[]>> tasks;
+        ZipInputStream zip = null;
+        if (zipFile != null && !zipFile.isEmpty()) {
+            zip = new ZipInputStream(zipFile.getInputStream());
+            tasks = zipTasks(zip, pwd);
+        } else if (StrUtil.isNotBlank(prefix)) {
+            List<Item> items = minioUtil.listObjects(true, prefix);
+            if (items == null) {
+                throw new RuntimeException("MinIO对象列表获取失败：" + prefix);
+            }
+            tasks = items.stream()
+                    .filter(item -> !item.isDir() && isCertFile(item.objectName()))
+                    .<Callable<String[]>>map(item -> () -> inspectLine(item.objectName(), () -> downloadLimited(item.objectName()), pwd))
+                    .iterator();
+        } else {
+            throw new RuntimeException("ZIP包与MinIO前缀不能同时为空");
+        }
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        try {
+            if (csv) {
+                writer.write(toCsvLine(INSPECT_COLUMNS));
+                writer.write('\n');
+            }
+            int count = writeInParallel(tasks, csv ? CertServiceImpl::toCsvLine : CertServiceImpl::toJsonLine, writer);
+            log.info("批量检查证书完成，数量：{}", count);
+        } finally {
+            if (zip != null) {
+                zip.close();
+            }
+            writer.close();
+        }
+    }
+
+    /**
+     * 按ZIP条目顺序生成检查任务，条目内容在调用方线程读取
+     */
+    private Iterator<Callable<String[]>> zipTasks(ZipInputStream zip, String pwd) {
+        return new Iterator<Callable<String[]>>() {
+            private Callable<String[]> next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = readNext();
+                }
+                return next != null;
+            }
+
+            @Override
+            public Callable<String[]> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Callable<String[]> task = next;
+                next = null;
+                return task;
+            }
+
+            @SneakyThrows
+            private Callable<String[]> readNext() {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (entry.isDirectory() || !isCertFile(entry.getName())) {
+                        continue;
+                    }
+                    String name = entry.getName();
+                    byte[] bytes;
+                    try {
+                        bytes = readLimited(zip);
+                    } catch (IOException e) {
+                        // 单个条目超限或读取失败只记入该行，下一次getNextEntry会跳过剩余内容
+                        return () -> inspectLine(name, () -> {
+                            throw e;
+                        }, pwd);
+                    }
+                    return () -> inspectLine(name, () -> bytes, pwd);
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * 检查单个证书文件，失败时返回错误信息而不中断批次
+     */
+    private String[] inspectLine(String name, Callable<byte[]> loader, String pwd) {
+        String[] line = new String[INSPECT_COLUMNS.length];
+        line[0] = name;
+        try {
+            byte[] bytes = loader.call();
+            if (bytes == null) {
+                throw new RuntimeException("文件读取失败");
+            }
+            String lowerName = name.toLowerCase();
+            X509Certificate certificate = lowerName.endsWith(".pfx") || lowerName.endsWith(".p12")
+                    ? loadPfxCertificate(bytes, pwd)
+                    : PfxUtil.toCertificate(bytes);
+            PfxUtil.CertInfo certInfo = PfxUtil.parseCert(certificate);
+            line[1] = certInfo.getSubject();
+            line[2] = certInfo.getSerialNumber();
+            line[3] = certInfo.getNotBefore();
+            line[4] = certInfo.getNotAfter();
+            line[5] = certInfo.getAlgorithm();
+            line[6] = certInfo.getIssuer();
+        } catch (Exception e) {
+            log.warn("证书检查失败：{}，{}", name, e.getMessage());
+            line[7] = StrUtil.blankToDefault(e.getMessage(), e.getClass().getSimpleName());
+        }
+        return line;
+    }
+
+    /**
+     * 取PFX中的证书(不解密私钥)，BC不支持时交给SecuEngine
+     */
+    private X509Certificate loadPfxCertificate(byte[] pfxBytes, String pwd) throws Exception {
+        try {
+            return PfxUtil.loadCertificate(pfxBytes, pwd);
+        } catch (Exception e) {
+            String pubKeyCert = Sm2SignUtil.secuEngine().ParsingPfx(new ByteArrayInputStream(pfxBytes), pwd, 1);
+            return PfxUtil.toCertificate(Base64.decode(pubKeyCert));
+        }
+    }
+
+    /**
+     * 流式下载MinIO对象，超过上限抛出异常
+     */
+    private byte[] downloadLimited(String objectName) throws IOException {
+        try (InputStream in = minioUtil.openStream(objectName)) {
+            return readLimited(in);
+        }
+    }
+
+    /**
+     * 读取当前ZIP条目或对象流，超过上限抛出异常
+     */
+    private static byte[] readLimited(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            if (out.size() + n > MAX_CERT_FILE_SIZE) {
+                throw new IOException("证书文件超过" + MAX_CERT_FILE_SIZE + "字节");
+            }
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isCertFile(String name) {
+        String lowerName = name.toLowerCase();
+        for (String suffix : CERT_SUFFIXES) {
+            if (lowerName.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String toJsonLine(String[] line) {
+        JSONObject json = new JSONObject();
+        for (int i = 0; i < INSPECT_COLUMNS.length; i++) {
+            json.set(INSPECT_COLUMNS[i], line[i]);
+        }
+        return json.toString();
+    }
+
+    private static String toCsvLine(String[] line) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < line.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            String value = StrUtil.nullToEmpty(line[i]);
+            if (StrUtil.containsAny(value, ',', '"', '\n', '\r')) {
+                sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                sb.append(value);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 并行执行任务，按完成顺序逐行写出
+     * 在途任务数限制为线程数的2倍，任务按需从迭代器中取出，避免一次性提交上千任务占用内存
+     *
+     * @param tasks     任务
+     * @param formatter 结果转为行
+     * @param writer    输出
+     * @return 完成数量
+     */
+    private <T> int writeInParallel(Iterator<Callable<T>> tasks, Function<T, String> formatter, Writer writer) throws Exception {
+        MeteredThreadPoolExecutor executor = executorRegistry.get(ExecutorType.CERT);
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        int window = executor.getMaximumPoolSize() * 2;
+        int inFlight = 0;
+        int completed = 0;
+        while (true) {
+            while (inFlight < window && tasks.hasNext()) {
+                completionService.submit(tasks.next());
+                inFlight++;
+            }
+            if (inFlight == 0) {
+                return completed;
+            }
+            T result = completionService.take().get();
+            inFlight--;
+            completed++;
+            writer.write(formatter.apply(result));
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+
+    /**
+     * 构造单条P10结果行，失败时返回错误信息而不中断批次
+     */
+    private JSONObject createP10Line(boolean isRsaNotEcc, int index, String sn, char[] password) {
+        JSONObject line = new JSONObject();
+        line.set("index", index);
+        line.set("sn", sn);
+        try {
+            CsrUtil.CsrResult result = CsrUtil.createCsr(isRsaNotEcc, sn);
+            line.set("p10", CsrUtil.toBase64(result.getCsr().getEncoded()));
+            line.set("encryptedPriKey", CsrUtil.encryptPrivateKey(result.getKeyPair().getPrivate(), password));
+        } catch (Exception e) {
+            log.error("构造P10失败，sn：{}", sn, e);
+            line.set("error", e.getMessage());
+        }
+        return line;
+    }
+
     /**
      * HEX解码
      *
@@ -105,8 +442,49 @@ public class CertServiceImpl {
         return Hex.toHexString(Base64.decode(base64));
     }
 
+    /**
+     * 流式转码，请求体为输入，响应体为输出
+     *
+     * @param from     输入编码：raw/hex/base64
+     * @param to       输出编码：raw/hex/base64
+     * @param request  请求
+     * @param response 响应
+     */
+    @SneakyThrows
+    public void streamTranscode(String from, String to, HttpServletRequest request, HttpServletResponse response) {
+        String codec = from + "->" + to;
+        response.setContentType("raw".equals(to) ? "application/octet-stream" : "text/plain;charset=US-ASCII");
+        InputStream in = request.getInputStream();
+        OutputStream out = response.getOutputStream();
+        switch (codec) {
+            case "raw->hex":
+                StreamCodecUtil.hexEncode(in, out);
+                break;
+            case "hex->raw":
+                StreamCodecUtil.hexDecode(in, out);
+                break;
+            case "raw->base64":
+                StreamCodecUtil.base64Encode(in, out);
+                break;
+            case "base64->raw":
+                StreamCodecUtil.base64Decode(in, out);
+                break;
+            case "hex->base64":
+                StreamCodecUtil.hexToBase64(in, out);
+                break;
+            case "base64->hex":
+                StreamCodecUtil.base64ToHex(in, out);
+                break;
+            default:
+                throw new RuntimeException("不支持的转码方式：" + codec);
+        }
+        out.flush();
+    }
+
     /**
      * 解析PFX信息
+     * 返回格式与SecuEngine/CertUtil一致：私钥每次由SecuEngine解出且不缓存；证书公开信息按HMAC(PFX摘要, 密码)缓存，
+     * 未命中时只取证书(不再解密私钥)并解码一次
      *
      * @param pfxFile PFX文件
      * @param pwd     密码
@@ -115,37 +493,47 @@ public class CertServiceImpl {
     @SneakyThrows
     public Map<String, String> analysisPfx(MultipartFile pfxFile, String pwd) {
         byte[] pfxBytes = pfxFile.getBytes();
-        SecuEngine secuEngine = new SecuEngine();
-        //公钥
-        String pubKeyCert = secuEngine.ParsingPfx(new ByteArrayInputStream(pfxBytes), pwd, 1);
         //私钥证书
-        String priKey = secuEngine.ParsingPfx(new ByteArrayInputStream(pfxBytes), pwd, 2);
+        String priKey = Sm2SignUtil.secuEngine().ParsingPfx(new ByteArrayInputStream(pfxBytes), pwd, 2);
+        String cacheKey = DigestUtil.hmac(HmacAlgorithm.HmacSHA256, PFX_CACHE_KEY)
+                .digestHex(DigestUtil.sha256Hex(pfxBytes) + ":" + StrUtil.nullToEmpty(pwd));
+        Map<String, String> certFields = PFX_CACHE.get(cacheKey);
+        if (certFields == null) {
+            //公钥证书
+            certFields = Collections.unmodifiableMap(parsePubKeyCert(loadPfxCertificate(pfxBytes, pwd)));
+            PFX_CACHE.put(cacheKey, certFields);
+        }
+        Map<String, String> map = new HashMap<>(certFields);
+        map.put("priKey", priKey);
+        return map;
+    }
 
+    /**
+     * 解析证书公开信息，字段格式沿用CertUtil
+     * 证件号按OID取主题中的SERIALNUMBER，不依赖RDN顺序；算法取自证书公钥(CertUtil解析算法在测试环境报错)
+     */
+    private static Map<String, String> parsePubKeyCert(X509Certificate certificate) throws Exception {
+        String pubKeyCert = Base64.toBase64String(certificate.getEncoded());
         String startDate = CertUtil.parseCert(pubKeyCert, String.valueOf(4));
         String endDate = CertUtil.parseCert(pubKeyCert, String.valueOf(5));
         String subject = CertUtil.parseCert(pubKeyCert, String.valueOf(1));
         String serialNumber = CertUtil.parseCert(pubKeyCert, String.valueOf(2));
         String isuseStr = CertUtil.parseCert(pubKeyCert, String.valueOf(3));
         String isuse = isuseStr.substring(isuseStr.indexOf("CN=") + 3);
-        // 不解算法 暂时没用 测试环境报错
-        String alg = CertUtil.parseCert(pubKeyCert, String.valueOf(9));
-        // 目前只能解析MCSCA颁发的证书
-        String idNum = subject.substring(subject.indexOf("SERIALNUMBER=") + 13, subject.indexOf(",CN="));
+        String idNum = PfxUtil.getSubjectValue(certificate, BCStyle.SERIALNUMBER);
         String[] splitStr = subject.split("@");
         String award = "";
         if (splitStr.length > 1) {
             award = splitStr[1];
         }
-        boolean isRsa = alg.startsWith("1.2.840.113549.1.1.1");
-        Map<String, String> map = new HashMap<>(10);
+        Map<String, String> map = new HashMap<>(16);
         map.put("pubKeyCert", pubKeyCert);
-        map.put("priKey", priKey);
         map.put("certEffectiveDate", startDate);
         map.put("certExpirationDate", endDate);
         map.put("serialNumber", serialNumber);
         map.put("idNum", idNum);
         map.put("award", award);
-        map.put("isRsa", Boolean.toString(isRsa));
+        map.put("isRsa", Boolean.toString(PfxUtil.isRsa(certificate)));
         map.put("isuse", isuse);
         map.put("certSubject", subject);
         return map;
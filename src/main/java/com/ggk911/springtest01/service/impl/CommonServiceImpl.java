@@ -1,26 +1,46 @@
 package com.ggk911.springtest01.service.impl;
 
-import cn.com.mcsca.extend.SecuEngine;
 import cn.com.mcsca.pki.core.util.SignatureUtil;
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.lang.TypeReference;
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
+import cn.hutool.crypto.digest.DigestUtil;
 import cn.hutool.json.JSONUtil;
-import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.ggk911.springtest01.util.CreateSealUtil;
+import com.ggk911.springtest01.util.MinioUtil;
+import com.ggk911.springtest01.util.SignJsonUtil;
+import com.ggk911.springtest01.util.Sm2SignUtil;
+import com.ggk911.springtest01.util.bulkhead.BulkheadRegistry;
+import com.ggk911.springtest01.util.bulkhead.BulkheadType;
 import com.ggk911.springtest01.util.pdf.PdfParameterEntity;
 import com.ggk911.springtest01.util.pdf.PdfUtil;
+import com.ggk911.springtest01.util.word.WordPdfPipeline;
+import com.ggk911.springtest01.util.word.WordTemplateUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.Resource;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * 通用公共服务
@@ -32,6 +52,15 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class CommonServiceImpl {
+    @Resource(name = "SignVerifyThreadPool")
+    private ForkJoinPool signVerifyThreadPool;
+
+    /**
+     * WORD模板变量缓存，key为模板SHA-256，value为不可变的解析结果
+     */
+    private static final LRUCache<String, WordParams> WORD_PARAMS_CACHE = CacheUtil.newLRUCache(256);
+
+    private final MinioUtil minioUtil;
 
     /**
      * 生成签名值
@@ -42,14 +71,10 @@ public class CommonServiceImpl {
      * @return 签名json
      */
     public Object createSignValue(String priKey, String reqHead, String reqBody) {
-        log.info("开始生产签名值，priKey={},reqHead={},reqBody={}", priKey, reqHead, reqBody);
-        Map<String, String> reqMap = new HashMap<>(2);
-        reqMap.put("reqHead", reqHead);
-        reqMap.put("reqBody", reqBody);
-        String jsonString = com.alibaba.fastjson.JSONObject.toJSONString(reqMap, SerializerFeature.MapSortField, SerializerFeature.SortField);
+        log.info("开始生产签名值，reqHead长度={},reqBody长度={}", StrUtil.length(reqHead), StrUtil.length(reqBody));
         String sign = "";
         try {
-            sign = SignatureUtil.doSign(priKey, jsonString);
+            sign = doSign(priKey, reqHead, reqBody);
         } catch (Exception e) {
             log.error("签名私钥...{}", priKey);
             e.printStackTrace();
@@ -71,14 +96,9 @@ public class CommonServiceImpl {
      */
     public Object verifySignValue(String pubKey, String reqHead, String reqBody, String signValue) {
         log.info("开始验证签名值");
-        Map<String, String> reqMap = new HashMap<>(2);
-        reqMap.put("reqHead", reqHead);
-        reqMap.put("reqBody", reqBody);
-        String jsonString = com.alibaba.fastjson.JSONObject.toJSONString(reqMap, SerializerFeature.MapSortField, SerializerFeature.SortField);
         boolean verify = false;
         try {
-            SecuEngine secuEngine = new SecuEngine();
-            verify = secuEngine.VerifySignDataWithSM2ByPublicKey(pubKey, jsonString.getBytes(), signValue);
+            verify = doVerify(parsePublicKeyOrNull(pubKey), pubKey, reqHead, reqBody, signValue);
         } catch (Exception e) {
             log.error("验签公钥...{}", pubKey);
             e.printStackTrace();
@@ -89,6 +109,114 @@ public class CommonServiceImpl {
         return JSONUtil.parse(resBody);
     }
 
+    /**
+     * 签名，由SignatureUtil完成，签名格式与合作方验签保持一致
+     *
+     * @param priKey  私钥
+     * @param reqHead 请求头
+     * @param reqBody 请求体
+     * @return 签名值
+     */
+    private String doSign(String priKey, String reqHead, String reqBody) throws Exception {
+        return SignatureUtil.doSign(priKey, SignJsonUtil.toJsonString(reqHead, reqBody));
+    }
+
+    /**
+     * 批量验签
+     * 相同公钥只解析一次，在fork-join线程池中并行验签，结果顺序与入参一致
+     *
+     * @param params 验签参数列表
+     * @return 验签结果
+     */
+    @SneakyThrows
+    public Object batchVerifySignValue(List<VerifySignParam> params) {
+        log.info("开始批量验证签名值，数量：{}", params.size());
+        // 按公钥分组解析
+        Map<String, ECPublicKeyParameters> publicKeys = new HashMap<>();
+        for (VerifySignParam param : params) {
+            if (!publicKeys.containsKey(param.getPubKey())) {
+                publicKeys.put(param.getPubKey(), parsePublicKeyOrNull(param.getPubKey()));
+            }
+        }
+        Boolean[] results = new Boolean[params.size()];
+        signVerifyThreadPool.submit(() -> IntStream.range(0, params.size()).parallel().forEach(i -> {
+            VerifySignParam param = params.get(i);
+            boolean verify = false;
+            try {
+                verify = doVerify(publicKeys.get(param.getPubKey()), param.getPubKey(), param.getReqHead(), param.getReqBody(), param.getSignValue());
+            } catch (Exception e) {
+                log.error("验签公钥...{}", param.getPubKey(), e);
+            }
+            results[i] = verify;
+        })).get();
+        Map<String, Object> resBody = new HashMap<>(1);
+        resBody.put("verify", results);
+        return JSONUtil.parse(resBody);
+    }
+
+    /**
+     * 本地解析公钥，格式无法识别时返回null
+     */
+    private ECPublicKeyParameters parsePublicKeyOrNull(String pubKey) {
+        try {
+            return Sm2SignUtil.parsePublicKey(pubKey);
+        } catch (IllegalArgumentException e) {
+            log.debug("公钥格式无法本地解析，使用SecuEngine验签");
+            return null;
+        }
+    }
+
+    /**
+     * 验签，公钥解析结果缓存复用
+     * 本地只处理能识别的公钥与签名值(Base64 DER)，本地通过即返回；本地不通过或格式无法识别时交由本线程的SecuEngine验签
+     * (本地使用默认用户ID，与SDK签名的一致性见Sm2SignUtilTests，未在所有签名来源上确认前不以本地否定为最终结果)
+     *
+     * @param publicKey 本地解析的公钥，为null时直接使用SecuEngine
+     * @param pubKey    公钥
+     * @param reqHead   请求头
+     * @param reqBody   请求体
+     * @param signValue 签名值
+     * @return 是否通过
+     */
+    private boolean doVerify(ECPublicKeyParameters publicKey, String pubKey, String reqHead, String reqBody, String signValue) throws Exception {
+        if (publicKey != null) {
+            byte[] signature = Sm2SignUtil.decodeSignature(signValue);
+            if (signature != null && Sm2SignUtil.verifyJson(publicKey, reqHead, reqBody, signature)) {
+                return true;
+            }
+        }
+        return Sm2SignUtil.secuEngine().VerifySignDataWithSM2ByPublicKey(pubKey, SignJsonUtil.toBytes(reqHead, reqBody), signValue);
+    }
+
+    /**
+     * 验签参数
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class VerifySignParam {
+        /**
+         * 公钥
+         */
+        private String pubKey;
+
+        /**
+         * 请求头
+         */
+        private String reqHead;
+
+        /**
+         * 请求体
+         */
+        private String reqBody;
+
+        /**
+         * 签名
+         */
+        private String signValue;
+    }
+
     /**
      * 生成个人方章
      *
@@ -98,7 +226,7 @@ public class CommonServiceImpl {
     @SneakyThrows
     public void createPersonSeal(String name, HttpServletResponse response) {
         log.info("开始生成图章，name={}", name);
-        byte[] sealBytes = CreateSealUtil.createSquareSeal(name);
+        byte[] sealBytes = BulkheadRegistry.get(BulkheadType.SEAL).execute(() -> CreateSealUtil.createSquareSeal(name));
         try (ServletOutputStream out = response.getOutputStream()) {
             out.write(sealBytes);
         } catch (Exception e) {
@@ -116,7 +244,7 @@ public class CommonServiceImpl {
     @SneakyThrows
     public void createEnterpriseSeal(String name, HttpServletResponse response) {
         log.info("开始生成图章，name={}", name);
-        byte[] sealBytes = CreateSealUtil.createCircleSeal(name);
+        byte[] sealBytes = BulkheadRegistry.get(BulkheadType.SEAL).execute(() -> CreateSealUtil.createCircleSeal(name));
         try (ServletOutputStream out = response.getOutputStream()) {
             out.write(sealBytes);
         } catch (Exception e) {
@@ -143,7 +271,7 @@ public class CommonServiceImpl {
         params.putAll(picParamsJson.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> JSONUtil.toBean(String.valueOf(entry.getValue()), PdfUtil.FillImageParam.class))));
         byte[] pdfFileBytes = pdfFile.getBytes();
         byte[] picFileBytes = picFile.getBytes();
-        byte[] pdfFill = PdfUtil.pdfFill(pdfFileBytes, params, picFileBytes);
+        byte[] pdfFill = BulkheadRegistry.get(BulkheadType.PDF).execute(() -> PdfUtil.pdfFill(pdfFileBytes, params, picFileBytes));
         try (ServletOutputStream out = response.getOutputStream()) {
             out.write(pdfFill);
         }
@@ -159,9 +287,123 @@ public class CommonServiceImpl {
     public JSONObject pdfParams(MultipartFile pdfFile) {
         byte[] pdfFileBytes = pdfFile.getBytes();
         List<PdfParameterEntity> params = new ArrayList<>();
-        PdfUtil.getPdfDomain(pdfFileBytes, params, null);
+        BulkheadRegistry.get(BulkheadType.PDF).run(() -> PdfUtil.getPdfDomain(pdfFileBytes, params, null));
         JSONObject res = new JSONObject();
         res.set("params", params);
         return res;
     }
+
+    /**
+     * 读取WORD模板变量
+     * 同一模板(内容SHA-256相同)只解析一次
+     *
+     * @param wordFile word模板
+     * @return 段落变量及明细表格变量
+     */
+    @SneakyThrows
+    public JSONObject wordParams(MultipartFile wordFile) {
+        byte[] wordBytes = wordFile.getBytes();
+        String key = DigestUtil.sha256Hex(wordBytes);
+        WordParams cached = WORD_PARAMS_CACHE.get(key);
+        if (cached == null) {
+            List<String> params = new ArrayList<>();
+            List<Map<String, List<String>>> detailTableParams = new ArrayList<>();
+            BulkheadRegistry.get(BulkheadType.WORD).run(() -> WordTemplateUtil.getWordAllVars(wordBytes, params, detailTableParams));
+            cached = new WordParams(Collections.unmodifiableList(params), Collections.unmodifiableList(detailTableParams.stream()
+                    .map(table -> Collections.unmodifiableMap(table.entrySet().stream()
+                            .collect(Collectors.toMap(Map.Entry::getKey, entry -> Collections.unmodifiableList(new ArrayList<>(entry.getValue())),
+                                    (a, b) -> a, LinkedHashMap::new))))
+                    .collect(Collectors.toList())));
+            WORD_PARAMS_CACHE.put(key, cached);
+        }
+        // set时集合逐层转为新的JSONArray/JSONObject，调用方修改返回值不影响缓存
+        JSONObject res = new JSONObject();
+        res.set("params", cached.getParams());
+        res.set("detailTableParams", cached.getDetailTableParams());
+        return res;
+    }
+
+    /**
+     * WORD模板变量解析结果(不可变)
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class WordParams {
+        /**
+         * 段落变量
+         */
+        private final List<String> params;
+
+        /**
+         * 明细表格变量
+         */
+        private final List<Map<String, List<String>>> detailTableParams;
+    }
+
+    /**
+     * 填充WORD模板并直出PDF
+     *
+     * @param wordFile        word模板
+     * @param params          段落及普通表格参数JSON
+     * @param detailTableData 明细表格参数JSON
+     * @param response        响应
+     */
+    @SneakyThrows
+    public void wordToPdf(MultipartFile wordFile, String params, String detailTableData, HttpServletResponse response) {
+        byte[] wordBytes = wordFile.getBytes();
+        WordPdfPipeline.Result result = BulkheadRegistry.get(BulkheadType.WORD).execute(() ->
+                WordPdfPipeline.fillToPdf(wordBytes, parseWordParams(params), parseDetailTableData(detailTableData)));
+        if (result.getPdfBytes() == null) {
+            throw new RuntimeException("WORD转PDF失败，请检查License");
+        }
+        response.setContentType("application/pdf");
+        response.setHeader("Server-Timing", result.toServerTiming());
+        try (ServletOutputStream out = response.getOutputStream()) {
+            out.write(result.getPdfBytes());
+        }
+    }
+
+    /**
+     * 填充WORD模板直出PDF并上传MinIO
+     *
+     * @param wordFile        word模板
+     * @param params          段落及普通表格参数JSON
+     * @param detailTableData 明细表格参数JSON
+     * @return 文件路径及各阶段耗时
+     */
+    @SneakyThrows
+    public JSONObject wordToPdfUpload(MultipartFile wordFile, String params, String detailTableData) {
+        byte[] wordBytes = wordFile.getBytes();
+        WordPdfPipeline.Result result = BulkheadRegistry.get(BulkheadType.WORD).execute(() ->
+                WordPdfPipeline.fillToPdf(wordBytes, parseWordParams(params), parseDetailTableData(detailTableData), minioUtil, "word.pdf"));
+        if (result.getPdfBytes() == null) {
+            throw new RuntimeException("WORD转PDF失败，请检查License");
+        }
+        JSONObject res = new JSONObject();
+        res.set("filePath", result.getObjectName());
+        res.set("stageMillis", result.getStageMillis());
+        res.set("totalMillis", result.getTotalMillis());
+        return res;
+    }
+
+    /**
+     * 解析WORD段落参数
+     */
+    private Map<String, Object> parseWordParams(String params) {
+        if (StrUtil.isBlank(params)) {
+            return new HashMap<>();
+        }
+        return new HashMap<>(JSONUtil.parseObj(params));
+    }
+
+    /**
+     * 解析WORD明细表格参数
+     */
+    private Map<String, List<Map<String, String>>> parseDetailTableData(String detailTableData) {
+        if (StrUtil.isBlank(detailTableData)) {
+            return new HashMap<>();
+        }
+        return JSONUtil.toBean(detailTableData, new TypeReference<Map<String, List<Map<String, String>>>>() {
+        }, false);
+    }
 }
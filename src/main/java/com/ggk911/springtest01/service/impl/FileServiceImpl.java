@@ -1,13 +1,15 @@
 package com.ggk911.springtest01.service.impl;
 
+import cn.hutool.core.io.IoUtil;
 import com.ggk911.springtest01.util.MinioUtil;
 import io.minio.messages.Item;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.servlet.http.HttpServletResponse;
+import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -42,13 +44,17 @@ public class FileServiceImpl {
     }
 
     /**
-     * 文件下载
+     * 文件下载，写出时才打开对象流，不整体读入内存
      *
      * @param filePath 文件路径
-     * @param response 响应
+     * @return 文件流
      */
-    public void downloadFile(String filePath, HttpServletResponse response) {
-        minioUtil.download(filePath, response);
+    public StreamingResponseBody downloadFile(String filePath) {
+        return out -> {
+            try (InputStream in = minioUtil.openStream(filePath)) {
+                IoUtil.copy(in, out);
+            }
+        };
     }
 
     /**
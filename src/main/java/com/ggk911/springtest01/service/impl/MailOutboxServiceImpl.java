@@ -0,0 +1,321 @@
+package com.ggk911.springtest01.service.impl;
+
+import cn.hutool.core.io.IORuntimeException;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import com.ggk911.springtest01.config.properties.MailOutboxConfig;
+import com.ggk911.springtest01.config.properties.MailPoolConfig;
+import com.ggk911.springtest01.entity.MailOutbox;
+import com.ggk911.springtest01.repository.MailOutboxRepository;
+import com.ggk911.springtest01.util.MinioUtil;
+import com.ggk911.springtest01.util.executor.ExecutorRegistry;
+import com.ggk911.springtest01.util.executor.ExecutorType;
+import com.ggk911.springtest01.util.mail.AttachmentSources;
+import com.ggk911.springtest01.util.mail.EncodedAttachment;
+import com.ggk911.springtest01.util.mail.MailMessage;
+import com.ggk911.springtest01.util.mail.PooledJavaMailSender;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.activation.DataSource;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 邮件发件箱
+ * 发送请求先落库；调度器按批认领(行锁跳过已被锁定的行)，在发送线程池上并行发送，失败按指数退避重试
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-05 11:20
+ **/
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MailOutboxServiceImpl {
+    private final MailOutboxRepository mailOutboxRepository;
+    private final MailOutboxConfig mailOutboxConfig;
+    private final MailPoolConfig mailPoolConfig;
+    private final PlatformTransactionManager transactionManager;
+    private final MinioUtil minioUtil;
+    private final ExecutorRegistry executorRegistry;
+
+    @Resource(name = "PooledMailSender")
+    private PooledJavaMailSender mailSender;
+
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong deliverNanos = new AtomicLong();
+
+    /**
+     * 最近一次轮询时的待发送数
+     */
+    private volatile long pendingCount;
+
+    /**
+     * 加入发件箱
+     * 附件为MinIO对象时只记录路径，发送时再读取
+     *
+     * @param message 邮件
+     * @return 发件箱ID
+     */
+    public Long enqueue(MailMessage message) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutbox outbox = new MailOutbox();
+        outbox.setToAddress(message.getTo());
+        outbox.setSubject(message.getSubject());
+        outbox.setContent(message.getContent());
+        outbox.setHtml(message.isHtml());
+        outbox.setAttachmentName(message.getAttachmentName());
+        if (message.getAttachment() != null) {
+            saveAttachment(outbox, message.getAttachment());
+        }
+        outbox.setStatus(MailOutbox.Status.PENDING);
+        outbox.setAttempts(0);
+        outbox.setNextAttemptAt(now);
+        outbox.setCreatedAt(now);
+        Long id = mailOutboxRepository.save(outbox).getId();
+        enqueuedCount.incrementAndGet();
+        return id;
+    }
+
+    /**
+     * 记录附件位置：MinIO对象只记路径；其他来源(含调用方本地文件)边读边上传到MinIO暂存
+     * 认领可能发生在任意节点，且调用方文件不保证在重试期间一直存在，因此不记录本机路径
+     */
+    private void saveAttachment(MailOutbox outbox, DataSource attachment) {
+        if (attachment instanceof AttachmentSources.MinioDataSource) {
+            outbox.setAttachmentType(MailOutbox.AttachmentType.MINIO);
+            outbox.setAttachmentRef(((AttachmentSources.MinioDataSource) attachment).getObjectName());
+            return;
+        }
+        String objectName;
+        try (InputStream in = attachment.getInputStream()) {
+            objectName = minioUtil.upload(in, outbox.getAttachmentName(), attachment.getContentType());
+        } catch (IOException e) {
+            throw new IORuntimeException("暂存邮件附件失败：" + outbox.getAttachmentName(), e);
+        }
+        outbox.setAttachmentType(MailOutbox.AttachmentType.SPOOL);
+        outbox.setAttachmentRef(objectName);
+    }
+
+    private DataSource loadAttachment(MailOutbox outbox) {
+        if (outbox.getAttachmentType() == null) {
+            return null;
+        }
+        return AttachmentSources.minio(minioUtil, outbox.getAttachmentRef());
+    }
+
+    /**
+     * 发送结束(成功或不再重试)后删除暂存附件
+     */
+    private void releaseAttachment(MailOutbox outbox) {
+        if (outbox.getAttachmentType() == MailOutbox.AttachmentType.SPOOL && !minioUtil.remove(outbox.getAttachmentRef())) {
+            log.warn("删除暂存邮件附件失败：{}", outbox.getAttachmentRef());
+        }
+    }
+
+    /**
+     * 轮询发送，一批满额时继续认领下一批
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-millis:1000}")
+    public void poll() {
+        if (!mailOutboxConfig.isEnabled()) {
+            return;
+        }
+        try {
+            int batchSize = mailOutboxConfig.getBatchSize();
+            while (dispatchOnce() >= batchSize) {
+                log.debug("发件箱积压，继续认领");
+            }
+            pendingCount = mailOutboxRepository.countByStatus(MailOutbox.Status.PENDING);
+        } catch (Exception e) {
+            log.error("发件箱轮询失败", e);
+        }
+    }
+
+    /**
+     * 认领一批到期邮件并发送
+     *
+     * @return 认领数量
+     */
+    public int dispatchOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Integer released = transactionTemplate.execute(status ->
+                mailOutboxRepository.releaseExpired(MailOutbox.Status.SENDING, MailOutbox.Status.PENDING, now));
+        if (released != null && released > 0) {
+            log.warn("发件箱租约过期重新放回待发送：{}", released);
+        }
+        // 截到秒，与DATETIME列精度一致，complete时按此值比对租约
+        LocalDateTime lease = now.plusNanos(mailOutboxConfig.getLeaseMillis() * 1_000_000).truncatedTo(ChronoUnit.SECONDS);
+        List<MailOutbox> claimed = transactionTemplate.execute(status -> {
+            List<MailOutbox> due = mailOutboxRepository.lockDue(MailOutbox.Status.PENDING, now, PageRequest.of(0, mailOutboxConfig.getBatchSize()));
+            if (due.isEmpty()) {
+                return Collections.<MailOutbox>emptyList();
+            }
+            List<Long> ids = due.stream().map(MailOutbox::getId).collect(Collectors.toList());
+            mailOutboxRepository.claim(ids, MailOutbox.Status.SENDING, lease);
+            return due;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        Map<String, EncodedAttachment> shared = encodeShared(claimed);
+        try {
+            CompletableFuture.allOf(claimed.stream()
+                    .map(outbox -> CompletableFuture.runAsync(() -> deliver(outbox, lease, shared.get(attachmentKey(outbox))), executorRegistry.executor(ExecutorType.EMAIL)))
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            shared.values().forEach(EncodedAttachment::close);
+        }
+        return claimed.size();
+    }
+
+    /**
+     * 同一批中多封邮件引用同一MinIO对象时，附件只编码一次共用
+     */
+    private Map<String, EncodedAttachment> encodeShared(List<MailOutbox> claimed) {
+        Map<String, List<MailOutbox>> groups = claimed.stream()
+                .filter(outbox -> outbox.getAttachmentType() == MailOutbox.AttachmentType.MINIO)
+                .collect(Collectors.groupingBy(this::attachmentKey));
+        Map<String, EncodedAttachment> shared = new HashMap<>();
+        groups.forEach((key, outboxes) -> {
+            if (outboxes.size() < 2) {
+                return;
+            }
+            MailOutbox first = outboxes.get(0);
+            try {
+                shared.put(key, EncodedAttachment.encode(loadAttachment(first), first.getAttachmentName(), mailPoolConfig.getSharedAttachmentMemoryBytes()));
+            } catch (IOException | IORuntimeException e) {
+                // 逐封读取，失败按重试处理
+                log.warn("发件箱共用附件编码失败：{}，异常：{}", first.getAttachmentRef(), e.getMessage());
+            }
+        });
+        return shared;
+    }
+
+    private String attachmentKey(MailOutbox outbox) {
+        return outbox.getAttachmentType() + ":" + outbox.getAttachmentRef() + ":" + outbox.getAttachmentName();
+    }
+
+    /**
+     * 发送一封并记录结果
+     * 租约已失效(被其他节点重新认领)时不覆盖结果、不删除暂存附件
+     *
+     * @param outbox  邮件
+     * @param lease   认领租约到期时间
+     * @param encoded 共用的预编码附件，为null时从附件位置读取
+     */
+    private void deliver(MailOutbox outbox, LocalDateTime lease, EncodedAttachment encoded) {
+        // 认领时已在库中加1
+        int attempts = outbox.getAttempts() + 1;
+        long start = System.nanoTime();
+        try {
+            MailMessage message = new MailMessage(outbox.getToAddress(), outbox.getSubject(), outbox.getContent(), outbox.isHtml(),
+                    encoded != null ? encoded : loadAttachment(outbox), outbox.getAttachmentName());
+            mailSender.send(message.toMimeMessage(mailSender, mailPoolConfig.getSender()));
+            if (complete(outbox, lease, MailOutbox.Status.SENT, outbox.getNextAttemptAt(), null, LocalDateTime.now())) {
+                releaseAttachment(outbox);
+            }
+            sentCount.incrementAndGet();
+        } catch (Exception e) {
+            String error = StrUtil.maxLength(StrUtil.blankToDefault(e.getMessage(), e.getClass().getName()), 990);
+            if (attempts >= mailOutboxConfig.getMaxAttempts()) {
+                log.error("发件箱邮件发送失败，不再重试，id：{}，地址：{}，异常：{}", outbox.getId(), outbox.getToAddress(), error);
+                if (complete(outbox, lease, MailOutbox.Status.FAILED, outbox.getNextAttemptAt(), error, null)) {
+                    releaseAttachment(outbox);
+                }
+                failedCount.incrementAndGet();
+            } else {
+                LocalDateTime nextAttemptAt = LocalDateTime.now().plusNanos(backoffMillis(attempts) * 1_000_000);
+                log.warn("发件箱邮件发送失败，第{}次，id：{}，下次：{}，异常：{}", attempts, outbox.getId(), nextAttemptAt, error);
+                complete(outbox, lease, MailOutbox.Status.PENDING, nextAttemptAt, error, null);
+                retriedCount.incrementAndGet();
+            }
+        } finally {
+            deliverNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 按租约记录结果
+     *
+     * @return 是否记录成功，false表示租约已失效
+     */
+    private boolean complete(MailOutbox outbox, LocalDateTime lease, MailOutbox.Status status, LocalDateTime nextAttemptAt,
+                             String error, LocalDateTime sentAt) {
+        if (mailOutboxRepository.complete(outbox.getId(), MailOutbox.Status.SENDING, lease, status, nextAttemptAt, error, sentAt) == 1) {
+            return true;
+        }
+        log.warn("发件箱租约已失效，结果不记录，id：{}，状态：{}", outbox.getId(), status);
+        return false;
+    }
+
+    /**
+     * 指数退避，带±20%抖动避免同时重试
+     *
+     * @param attempts 已尝试次数
+     * @return 间隔(毫秒)
+     */
+    long backoffMillis(int attempts) {
+        long base = mailOutboxConfig.getBackoffBaseMillis();
+        long max = mailOutboxConfig.getBackoffMaxMillis();
+        long delay = base << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > max) {
+            delay = max;
+        }
+        return (long) (delay * RandomUtil.randomDouble(0.8, 1.2));
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.get();
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * 已完成发送(成功+失败)数
+     */
+    public long getDeliveredCount() {
+        return sentCount.get() + retriedCount.get() + failedCount.get();
+    }
+
+    /**
+     * 发送总耗时(毫秒)
+     */
+    public double getDeliverMillis() {
+        return deliverNanos.get() / 1_000_000.0;
+    }
+}
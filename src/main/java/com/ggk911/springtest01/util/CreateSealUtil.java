@@ -95,6 +95,12 @@ public class CreateSealUtil {
      * @return 字节
      */
     public static byte[] createSquareSeal(String name) {
+        byte[] seal = MeterUtil.time("seal.operation", "square", () -> squareSeal(name));
+        MeterUtil.bytes("seal.bytes", "square", "out", seal.length);
+        return seal;
+    }
+
+    private static byte[] squareSeal(String name) {
         // 两字是否在左
         boolean twoLeft = true;
         // 是否保持字体宽度，不拉伸
@@ -151,6 +157,12 @@ public class CreateSealUtil {
      * @return 字节
      */
     public static byte[] createCircleSeal(String name) {
+        byte[] seal = MeterUtil.time("seal.operation", "circle", () -> circleSeal(name));
+        MeterUtil.bytes("seal.bytes", "circle", "out", seal.length);
+        return seal;
+    }
+
+    private static byte[] circleSeal(String name) {
         int pointCount = name.codePointCount(0, name.length());
         if (pointCount >= 24) {
             System.out.println("字数过长，推荐自定义图章");
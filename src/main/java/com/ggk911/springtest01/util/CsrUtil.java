@@ -1,12 +1,17 @@
 package com.ggk911.springtest01.util;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.x500.RDN;
 import org.bouncycastle.asn1.x500.X500Name;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.PKCS8Generator;
+import org.bouncycastle.openssl.jcajce.JcaPKCS8Generator;
+import org.bouncycastle.openssl.jcajce.JceOpenSSLPKCS8EncryptorBuilder;
 import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.OutputEncryptor;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.bouncycastle.pkcs.PKCS10CertificationRequestBuilder;
@@ -31,7 +36,6 @@ import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.Provider;
 import java.security.PublicKey;
-import java.security.Security;
 import java.security.spec.ECGenParameterSpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
@@ -46,16 +50,39 @@ import java.util.Base64;
  **/
 public class CsrUtil {
 
-    private static final Provider BC = new BouncyCastleProvider();
+    private static final Provider BC = SecurityProviderUtil.BC;
 
     /**
-     * 生成PKCS#10格式的CSR
+     * RSA-2048密钥池，为null时现场生成
+     */
+    private static volatile KeyPairPool rsaKeyPairPool;
+
+    /**
+     * SM2密钥池，为null时现场生成
+     */
+    private static volatile KeyPairPool sm2KeyPairPool;
+
+    /**
+     * 设置密钥池
      *
-     * @param isRsaNotEcc {@code true}：使用 RSA 加密算法；{@code false}：使用 ECC（SM2）加密算法
-     * @return P10证书签名请求 Base64 字符串
+     * @param isRsaNotEcc {@code true}：RSA；{@code false}：SM2
+     * @param pool        密钥池，为null时现场生成
      */
-    public static String generateCsr(boolean isRsaNotEcc, String sn) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, OperatorCreationException, IOException {
-        // 使用 RSA/ECC 算法，生成密钥对（公钥、私钥）
+    public static void setKeyPairPool(boolean isRsaNotEcc, KeyPairPool pool) {
+        if (isRsaNotEcc) {
+            rsaKeyPairPool = pool;
+        } else {
+            sm2KeyPairPool = pool;
+        }
+    }
+
+    /**
+     * 创建密钥对生成器(RSA-2048 / SM2)
+     *
+     * @param isRsaNotEcc {@code true}：RSA；{@code false}：SM2
+     * @return 已初始化的生成器
+     */
+    public static KeyPairGenerator newKeyPairGenerator(boolean isRsaNotEcc) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
         KeyPairGenerator generator = KeyPairGenerator.getInstance(isRsaNotEcc ? "RSA" : "EC", BC);
         if (isRsaNotEcc) {
             // RSA
@@ -64,18 +91,71 @@ public class CsrUtil {
             // ECC
             generator.initialize(new ECGenParameterSpec("sm2p256v1"));
         }
-        KeyPair keyPair = generator.generateKeyPair();
-        PrivateKey privateKey = keyPair.getPrivate();
-        PublicKey publicKey = keyPair.getPublic();
+        return generator;
+    }
+
+    /**
+     * 获取密钥对，优先从密钥池取
+     *
+     * @param isRsaNotEcc {@code true}：RSA；{@code false}：SM2
+     * @return 密钥对
+     */
+    public static KeyPair generateKeyPair(boolean isRsaNotEcc) throws Exception {
+        String algorithm = isRsaNotEcc ? "rsa" : "sm2";
+        KeyPairPool pool = isRsaNotEcc ? rsaKeyPairPool : sm2KeyPairPool;
+        if (pool != null) {
+            return MeterUtil.time("crypto.operation", "keypool." + algorithm, pool::take);
+        }
+        return MeterUtil.time("crypto.operation", "keygen." + algorithm, () -> newKeyPairGenerator(isRsaNotEcc).generateKeyPair());
+    }
+
+    /**
+     * 生成PKCS#10格式的CSR
+     * 不做任何控制台输出，需要PEM时使用{@link #createCsr(boolean, String)}按需生成
+     *
+     * @param isRsaNotEcc {@code true}：使用 RSA 加密算法；{@code false}：使用 ECC（SM2）加密算法
+     * @return P10证书签名请求 Base64 字符串
+     */
+    public static String generateCsr(boolean isRsaNotEcc, String sn) throws Exception {
+        // 以 Base64 字符串形式返回 CSR
+        return toBase64(createCsr(isRsaNotEcc, sn).getCsr().getEncoded());
+    }
+
+    /**
+     * Base64编码
+     *
+     * @param data 数据
+     * @return Base64字符串
+     */
+    public static String toBase64(byte[] data) {
+        return Base64.getEncoder().encodeToString(data);
+    }
 
-        // 打印私钥，注意：请务必保存您的私钥"EC PRIVATE KEY" "EC PUBLIC KEY"
-        System.out.println("----------打印私钥");
-        String privateKeyStr = isRsaNotEcc ? PemFormatUtil.priKeyToPem(privateKey) : PemFormatUtil.pemFormat("EC PRIVATE KEY", privateKey.getEncoded());
-        System.out.println(privateKeyStr);
-        System.out.println("----------打印公钥");
-        String publicKeyStr = isRsaNotEcc ? PemFormatUtil.pubKeyToPem(publicKey) : PemFormatUtil.pemFormat("EC PUBLIC KEY", publicKey.getEncoded());
-        System.out.println(publicKeyStr);
+    /**
+     * 生成密钥对及PKCS#10格式的CSR(不打印任何内容)
+     *
+     * @param isRsaNotEcc {@code true}：使用 RSA 加密算法；{@code false}：使用 ECC（SM2）加密算法
+     * @param sn          序列号
+     * @return 密钥对及CSR
+     */
+    public static CsrResult createCsr(boolean isRsaNotEcc, String sn) throws Exception {
+        return MeterUtil.time("crypto.operation", isRsaNotEcc ? "csr.rsa" : "csr.sm2", () -> {
+            KeyPair keyPair = generateKeyPair(isRsaNotEcc);
+            return new CsrResult(isRsaNotEcc, keyPair, buildCsr(isRsaNotEcc, sn, keyPair));
+        });
+    }
 
+    /**
+     * 用已有密钥对构建PKCS#10格式的CSR
+     *
+     * @param isRsaNotEcc {@code true}：SHA256WithRSA；{@code false}：SM3withSM2
+     * @param sn          序列号
+     * @param keyPair     密钥对
+     * @return CSR
+     */
+    public static PKCS10CertificationRequest buildCsr(boolean isRsaNotEcc, String sn, KeyPair keyPair) throws OperatorCreationException {
+        PrivateKey privateKey = keyPair.getPrivate();
+        PublicKey publicKey = keyPair.getPublic();
         // 按需添加证书主题项，
         // 有些 CSR 不需要我们在主题项中添加各字段,
         // 如 `C=CN, CN=吴仙杰, E=wuxianjiezh@gmail.com, OU=3303..., L=杭州, S=浙江`，
@@ -101,18 +181,70 @@ public class CsrUtil {
 
         // 创建 CSR
         PKCS10CertificationRequestBuilder builder = new JcaPKCS10CertificationRequestBuilder(subject, publicKey);
-        PKCS10CertificationRequest csr = builder.build(signer);
+        return builder.build(signer);
+    }
 
-        // 打印 OpenSSL PEM 格式文件字符串
-        System.out.println("----------打印PEM 格式CSR");
-        String csrStr = PemFormatUtil.csrToPem(csr);
-        System.out.println(csrStr);
+    /**
+     * 私钥加密为PEM(PKCS#8 AES-256-CBC)
+     *
+     * @param privateKey 私钥
+     * @param password   加密口令
+     * @return ENCRYPTED PRIVATE KEY PEM
+     */
+    public static String encryptPrivateKey(PrivateKey privateKey, char[] password) throws OperatorCreationException, IOException {
+        OutputEncryptor encryptor = new JceOpenSSLPKCS8EncryptorBuilder(PKCS8Generator.AES_256_CBC)
+                .setProvider(BC)
+                .setPasssword(password)
+                .build();
+        PemObject pemObject = new JcaPKCS8Generator(privateKey, encryptor).generate();
+        StringWriter stringWriter = new StringWriter();
+        try (PemWriter pemWriter = new PemWriter(stringWriter)) {
+            pemWriter.writeObject(pemObject);
+        }
+        return stringWriter.toString();
+    }
 
-        // 以 Base64 字符串形式返回 CSR
-        String baseStr = Base64.getEncoder().encodeToString(csr.getEncoded());
-        System.out.println("----------打印Base64格式CSR");
-        System.out.println(baseStr);
-        return baseStr;
+    /**
+     * 密钥对及CSR
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CsrResult {
+        /**
+         * 是否RSA
+         */
+        private final boolean isRsaNotEcc;
+
+        /**
+         * 密钥对
+         */
+        private final KeyPair keyPair;
+
+        /**
+         * CSR
+         */
+        private final PKCS10CertificationRequest csr;
+
+        /**
+         * 私钥PEM(按需生成)，注意：请务必保存您的私钥
+         */
+        public String getPrivateKeyPem() {
+            return isRsaNotEcc ? PemFormatUtil.priKeyToPem(keyPair.getPrivate()) : PemFormatUtil.pemFormat("EC PRIVATE KEY", keyPair.getPrivate().getEncoded());
+        }
+
+        /**
+         * 公钥PEM(按需生成)
+         */
+        public String getPublicKeyPem() {
+            return isRsaNotEcc ? PemFormatUtil.pubKeyToPem(keyPair.getPublic()) : PemFormatUtil.pemFormat("EC PUBLIC KEY", keyPair.getPublic().getEncoded());
+        }
+
+        /**
+         * CSR的OpenSSL PEM格式(按需生成)
+         */
+        public String getCsrPem() {
+            return PemFormatUtil.csrToPem(csr);
+        }
     }
 
     /**
@@ -122,7 +254,6 @@ public class CsrUtil {
      * @author Linwei
      */
     public static PKCS10CertificationRequest convertPemToPKCS10CertificationRequest(String csrStr) throws Exception {
-        Security.addProvider(new BouncyCastleProvider());
         PKCS10CertificationRequest csr = null;
         ByteArrayInputStream pemStream = null;
         pemStream = new ByteArrayInputStream(csrStr.getBytes(StandardCharsets.UTF_8));
@@ -175,7 +306,7 @@ public class CsrUtil {
             // 注意：先用BASE64解密字符串, 否则会报错误：invalid key format ssl invalid key format
             byte[] buffer = Base64.getDecoder().decode(publicKeyStr);
             X509EncodedKeySpec keySpec = new X509EncodedKeySpec(buffer);
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            KeyFactory keyFactory = SecurityProviderUtil.keyFactory("RSA");
             return keyFactory.generatePublic(keySpec);
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             throw new RuntimeException(e);
@@ -189,7 +320,7 @@ public class CsrUtil {
         try {
             byte[] buffer = Base64.getDecoder().decode(privateKeyStr);
             PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(buffer);
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            KeyFactory keyFactory = SecurityProviderUtil.keyFactory("RSA");
             return keyFactory.generatePrivate(keySpec);
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             throw new RuntimeException(e);
@@ -200,7 +331,7 @@ public class CsrUtil {
      * 加密
      */
     public static byte[] encrypt(PublicKey publicKey, String message) throws Exception {
-        Cipher cipher = Cipher.getInstance("RSA");
+        Cipher cipher = SecurityProviderUtil.cipher("RSA");
         cipher.init(Cipher.ENCRYPT_MODE, publicKey);
 
         return cipher.doFinal(message.getBytes(StandardCharsets.UTF_8));
@@ -210,7 +341,7 @@ public class CsrUtil {
      * 解密
      */
     public static byte[] decrypt(PrivateKey privateKey, byte[] encrypted) throws Exception {
-        Cipher cipher = Cipher.getInstance("RSA");
+        Cipher cipher = SecurityProviderUtil.cipher("RSA");
         cipher.init(Cipher.DECRYPT_MODE, privateKey);
         return cipher.doFinal(encrypted);
     }
@@ -0,0 +1,196 @@
+package com.ggk911.springtest01.util;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 密钥对预生成池
+ * 后台线程在池中数量低于低水位时补充到高水位，取用时池空则当前线程现场生成
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-22 15:10
+ **/
+@Slf4j
+public class KeyPairPool {
+
+    /**
+     * 名称
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 低水位，低于此数量开始补充
+     */
+    @Getter
+    private final int lowWatermark;
+
+    /**
+     * 高水位，补充到此数量停止
+     */
+    @Getter
+    private final int highWatermark;
+
+    /**
+     * 补充线程数
+     */
+    private final int refillThreads;
+
+    /**
+     * 密钥生成器工厂，每个线程独立持有生成器
+     */
+    private final Callable<KeyPairGenerator> generatorFactory;
+
+    private final BlockingQueue<KeyPair> pool;
+
+    private final Object monitor = new Object();
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    private volatile boolean refilling = true;
+
+    /**
+     * 后台生成数量
+     */
+    private final AtomicLong generatedCount = new AtomicLong();
+
+    /**
+     * 从池中取到的数量
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * 池空现场生成的数量
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    public KeyPairPool(String name, int lowWatermark, int highWatermark, int refillThreads, Callable<KeyPairGenerator> generatorFactory) {
+        if (lowWatermark < 0 || highWatermark <= lowWatermark) {
+            throw new IllegalArgumentException("密钥池水位配置错误：" + name);
+        }
+        this.name = name;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.refillThreads = Math.max(1, refillThreads);
+        this.generatorFactory = generatorFactory;
+        this.pool = new ArrayBlockingQueue<>(highWatermark);
+    }
+
+    /**
+     * 启动补充线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 1; i <= refillThreads; i++) {
+            Thread thread = new Thread(this::refillLoop, "KeyPairPool-" + name + "-" + i);
+            thread.setDaemon(true);
+            // 低于请求线程优先级，避免抢占CPU
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            thread.start();
+            threads.add(thread);
+        }
+        log.info("密钥池启动，{}：低水位{}，高水位{}，补充线程{}", name, lowWatermark, highWatermark, refillThreads);
+    }
+
+    /**
+     * 停止补充线程
+     */
+    public synchronized void stop() {
+        running = false;
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        threads.clear();
+    }
+
+    /**
+     * 取一个密钥对，池空时当前线程现场生成
+     *
+     * @return 密钥对
+     */
+    public KeyPair take() throws Exception {
+        KeyPair keyPair = pool.poll();
+        if (pool.size() < lowWatermark && !refilling) {
+            synchronized (monitor) {
+                refilling = true;
+                monitor.notifyAll();
+            }
+        }
+        if (keyPair != null) {
+            hitCount.incrementAndGet();
+            return keyPair;
+        }
+        missCount.incrementAndGet();
+        return generatorFactory.call().generateKeyPair();
+    }
+
+    /**
+     * 当前池中数量
+     */
+    public int getDepth() {
+        return pool.size();
+    }
+
+    public long getGeneratedCount() {
+        return generatedCount.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private void refillLoop() {
+        KeyPairGenerator generator;
+        try {
+            generator = generatorFactory.call();
+        } catch (Exception e) {
+            log.error("密钥池{}创建密钥生成器失败", name, e);
+            return;
+        }
+        while (running) {
+            try {
+                synchronized (monitor) {
+                    while (running && !refilling) {
+                        monitor.wait();
+                    }
+                }
+                if (!running) {
+                    break;
+                }
+                KeyPair keyPair = generator.generateKeyPair();
+                if (pool.offer(keyPair)) {
+                    generatedCount.incrementAndGet();
+                }
+                if (pool.size() >= highWatermark) {
+                    refilling = false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("密钥池{}生成密钥对失败", name, e);
+            }
+        }
+    }
+}
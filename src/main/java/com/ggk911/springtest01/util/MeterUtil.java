@@ -0,0 +1,141 @@
+package com.ggk911.springtest01.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标工具类
+ * 供静态工具类(PdfUtil、CsrUtil等)在热点操作上埋点，注册到Metrics.globalRegistry，Spring Boot会把Prometheus等注册表加入其中
+ * 耗时统一按operation、outcome(success/error)打标签，并发布直方图用于计算p95/p99
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-09 10:00
+ **/
+public class MeterUtil {
+
+    public static final String SUCCESS = "success";
+
+    public static final String ERROR = "error";
+
+    /**
+     * 可抛出受检异常、有返回值的操作
+     */
+    @FunctionalInterface
+    public interface CheckedCallable<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * 可抛出受检异常的操作
+     */
+    @FunctionalInterface
+    public interface CheckedRunnable<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * 计时执行，异常原样抛出
+     *
+     * @param name      指标名
+     * @param operation 操作
+     * @param callable  操作内容
+     * @return 操作结果
+     */
+    public static <T, E extends Exception> T time(String name, String operation, CheckedCallable<T, E> callable) throws E {
+        long start = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            T result = callable.call();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            stop(start, name, operation, outcome);
+        }
+    }
+
+    /**
+     * 计时执行，异常原样抛出
+     *
+     * @param name      指标名
+     * @param operation 操作
+     * @param runnable  操作内容
+     */
+    public static <E extends Exception> void run(String name, String operation, CheckedRunnable<E> runnable) throws E {
+        time(name, operation, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * 计时开始，用于内部吞掉异常、需自行判断结果的操作，配合stop使用
+     *
+     * @return 开始时间(纳秒)
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 计时结束
+     *
+     * @param start     start()返回的开始时间
+     * @param name      指标名
+     * @param operation 操作
+     * @param outcome   结果 success/error
+     */
+    public static void stop(long start, String name, String operation, String outcome) {
+        timer(name, operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer timer(String name, String operation, String outcome) {
+        return Timer.builder(name)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * 记录字节数(输入/输出大小、流式传输量)
+     *
+     * @param name      指标名
+     * @param operation 操作
+     * @param direction 方向 in/out
+     * @param bytes     字节数
+     */
+    public static void bytes(String name, String operation, String direction, long bytes) {
+        DistributionSummary.builder(name)
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .tag("direction", direction)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1024D)
+                .maximumExpectedValue(1024D * 1024 * 1024)
+                .register(Metrics.globalRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * 记录数量分布(页数、字号缩小次数等)
+     *
+     * @param name      指标名
+     * @param operation 操作
+     * @param amount    数量
+     */
+    public static void summary(String name, String operation, double amount) {
+        DistributionSummary.builder(name)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1D)
+                .maximumExpectedValue(10_000D)
+                .register(Metrics.globalRegistry)
+                .record(amount);
+    }
+}
@@ -22,12 +22,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,6 +42,11 @@ import java.util.List;
 @Component
 @RequiredArgsConstructor
 public class MinioUtil {
+    /**
+     * 流式上传分片大小，MinIO要求不小于5MB
+     */
+    private static final long STREAM_PART_SIZE = 10L * 1024 * 1024;
+
     private final MinioConfig minioConfig;
     private final MinioClient minioClient;
 
@@ -136,7 +144,9 @@ public class MinioUtil {
      * @return 路径
      */
     public String upload(byte[] bytes, String fileName, String contentType) {
-        String objectName = DateUtil.format(DateUtil.date(), "yyyy-MM/dd") + "/" + UUID.fastUUID().toString(true) + "." + FileUtil.extName(fileName);
+        String objectName = newObjectName(fileName);
+        long start = MeterUtil.start();
+        String outcome = MeterUtil.SUCCESS;
         try {
             PutObjectArgs objectArgs = PutObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
@@ -145,12 +155,50 @@ public class MinioUtil {
                     .contentType(contentType).build();
             // 文件名称相同会覆盖
             minioClient.putObject(objectArgs);
+            MeterUtil.bytes("minio.bytes", "upload", "out", bytes.length);
         } catch (Exception e) {
+            outcome = MeterUtil.ERROR;
             e.printStackTrace();
+        } finally {
+            MeterUtil.stop(start, "minio.operation", "upload", outcome);
         }
         return objectName;
     }
 
+    /**
+     * 流式上传，长度未知时按分片上传，不整体读入内存；失败抛出异常
+     *
+     * @param stream      文件流，调用方负责关闭
+     * @param fileName    文件名称
+     * @param contentType 文件类型
+     * @return 路径
+     */
+    public String upload(InputStream stream, String fileName, String contentType) throws IOException {
+        String objectName = newObjectName(fileName);
+        CountingInputStream counting = new CountingInputStream(stream);
+        long start = MeterUtil.start();
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(objectName)
+                    .stream(counting, -1, STREAM_PART_SIZE)
+                    .contentType(contentType).build());
+        } catch (IOException e) {
+            MeterUtil.stop(start, "minio.operation", "upload", MeterUtil.ERROR);
+            throw e;
+        } catch (Exception e) {
+            MeterUtil.stop(start, "minio.operation", "upload", MeterUtil.ERROR);
+            throw new IOException("上传文件失败：" + fileName, e);
+        }
+        MeterUtil.stop(start, "minio.operation", "upload", MeterUtil.SUCCESS);
+        MeterUtil.bytes("minio.bytes", "upload", "out", counting.getByteCount());
+        return objectName;
+    }
+
+    private static String newObjectName(String fileName) {
+        return DateUtil.format(DateUtil.date(), "yyyy-MM/dd") + "/" + UUID.fastUUID().toString(true) + "." + FileUtil.extName(fileName);
+    }
+
     /**
      * 预览图片
      *
@@ -163,9 +211,13 @@ public class MinioUtil {
                 .bucket(minioConfig.getBucketName())
                 .object(filePath)
                 .method(Method.GET).build();
+        long start = MeterUtil.start();
         try {
-            return minioClient.getPresignedObjectUrl(build);
+            String url = minioClient.getPresignedObjectUrl(build);
+            MeterUtil.stop(start, "minio.operation", "preview", MeterUtil.SUCCESS);
+            return url;
         } catch (Exception e) {
+            MeterUtil.stop(start, "minio.operation", "preview", MeterUtil.ERROR);
             e.printStackTrace();
         }
         return null;
@@ -181,14 +233,56 @@ public class MinioUtil {
         GetObjectArgs objectArgs = GetObjectArgs.builder()
                 .bucket(minioConfig.getBucketName())
                 .object(filePath).build();
+        long start = MeterUtil.start();
         try (GetObjectResponse response = minioClient.getObject(objectArgs)) {
-            return IOUtils.toByteArray(response);
+            byte[] bytes = IOUtils.toByteArray(response);
+            MeterUtil.stop(start, "minio.operation", "download", MeterUtil.SUCCESS);
+            MeterUtil.bytes("minio.bytes", "download", "in", bytes.length);
+            return bytes;
         } catch (Exception e) {
+            MeterUtil.stop(start, "minio.operation", "download", MeterUtil.ERROR);
             e.printStackTrace();
         }
         return null;
     }
 
+    /**
+     * 打开文件流，调用方负责关闭，适合大文件边读边处理
+     * 计时只含请求往返(收到响应头)，流式读取的字节数在关闭时记录
+     *
+     * @param filePath 文件路径
+     * @return 文件流
+     */
+    public InputStream openStream(String filePath) throws IOException {
+        GetObjectArgs objectArgs = GetObjectArgs.builder()
+                .bucket(minioConfig.getBucketName())
+                .object(filePath).build();
+        long start = MeterUtil.start();
+        GetObjectResponse response;
+        try {
+            response = minioClient.getObject(objectArgs);
+        } catch (IOException e) {
+            MeterUtil.stop(start, "minio.operation", "stream", MeterUtil.ERROR);
+            throw e;
+        } catch (Exception e) {
+            MeterUtil.stop(start, "minio.operation", "stream", MeterUtil.ERROR);
+            throw new IOException("读取文件失败：" + filePath, e);
+        }
+        MeterUtil.stop(start, "minio.operation", "stream", MeterUtil.SUCCESS);
+        return new CountingInputStream(response) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!closed) {
+                    closed = true;
+                    MeterUtil.bytes("minio.bytes", "stream", "in", getByteCount());
+                }
+            }
+        };
+    }
+
     /**
      * 文件下载到http响应
      *
@@ -231,14 +325,17 @@ public class MinioUtil {
                         .prefix(prefix)
                         .build());
         List<Item> items = new ArrayList<>();
+        long start = MeterUtil.start();
         try {
             for (Result<Item> result : results) {
                 items.add(result.get());
             }
         } catch (Exception e) {
+            MeterUtil.stop(start, "minio.operation", "list", MeterUtil.ERROR);
             e.printStackTrace();
             return null;
         }
+        MeterUtil.stop(start, "minio.operation", "list", MeterUtil.SUCCESS);
         return items;
     }
 
@@ -249,12 +346,15 @@ public class MinioUtil {
      * @return 删除成功
      */
     public boolean remove(String filePath) {
+        long start = MeterUtil.start();
         try {
             minioClient.removeObject(RemoveObjectArgs.builder().bucket(minioConfig.getBucketName()).object(filePath).build());
         } catch (Exception e) {
+            MeterUtil.stop(start, "minio.operation", "remove", MeterUtil.ERROR);
             e.printStackTrace();
             return false;
         }
+        MeterUtil.stop(start, "minio.operation", "remove", MeterUtil.SUCCESS);
         return true;
     }
 
@@ -0,0 +1,275 @@
+package com.ggk911.springtest01.util;
+
+import cn.hutool.core.date.DateUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1String;
+import org.bouncycastle.asn1.pkcs.Attribute;
+import org.bouncycastle.asn1.pkcs.ContentInfo;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.operator.bc.BcDefaultDigestProvider;
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.bouncycastle.pkcs.PKCS12SafeBag;
+import org.bouncycastle.pkcs.PKCS12SafeBagFactory;
+import org.bouncycastle.pkcs.bc.BcPKCS12MacCalculatorBuilderProvider;
+import org.bouncycastle.pkcs.jcajce.JcePKCSPBEInputDecryptorProviderBuilder;
+import org.bouncycastle.util.encoders.Base64;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PFX/证书解析
+ * 只需证书时用loadCertificate(不解密私钥)；证书字段均从同一个已解码的X509Certificate读取，不重复解码
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-30 14:30
+ **/
+public class PfxUtil {
+
+    private static final Provider BC = SecurityProviderUtil.BC;
+
+    /**
+     * RSA公钥算法OID
+     */
+    public static final String RSA_OID = "1.2.840.113549.1.1.1";
+
+    /**
+     * 加载PFX，取第一个私钥条目
+     *
+     * @param pfxBytes PFX文件
+     * @param pwd      密码
+     * @return 证书与私钥
+     */
+    public static PfxEntry load(byte[] pfxBytes, String pwd) throws Exception {
+        char[] password = pwd == null ? new char[0] : pwd.toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12", BC);
+        keyStore.load(new ByteArrayInputStream(pfxBytes), password);
+        Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            if (!keyStore.isKeyEntry(alias)) {
+                continue;
+            }
+            Key key = keyStore.getKey(alias, password);
+            Certificate certificate = keyStore.getCertificate(alias);
+            if (key instanceof PrivateKey && certificate instanceof X509Certificate) {
+                return new PfxEntry((X509Certificate) certificate, (PrivateKey) key);
+            }
+        }
+        throw new IllegalArgumentException("PFX中没有私钥条目");
+    }
+
+    /**
+     * 只取PFX中私钥对应的证书，不解密私钥
+     * 优先取与私钥条目localKeyId相同的证书，都没有localKeyId时取第一个证书；有MAC时校验密码
+     *
+     * @param pfxBytes PFX文件
+     * @param pwd      密码
+     * @return 证书
+     */
+    public static X509Certificate loadCertificate(byte[] pfxBytes, String pwd) throws Exception {
+        char[] password = pwd == null ? new char[0] : pwd.toCharArray();
+        PKCS12PfxPdu pfx = new PKCS12PfxPdu(pfxBytes);
+        if (pfx.hasMac() && !pfx.isMacValid(new BcPKCS12MacCalculatorBuilderProvider(BcDefaultDigestProvider.INSTANCE), password)) {
+            throw new IllegalArgumentException("PFX密码错误");
+        }
+        List<X509CertificateHolder> certificates = new ArrayList<>();
+        List<ASN1Primitive> certKeyIds = new ArrayList<>();
+        Set<ASN1Primitive> keyIds = new HashSet<>();
+        for (ContentInfo info : pfx.getContentInfos()) {
+            // 证书袋通常以口令加密，私钥袋(pkcs8ShroudedKeyBag)只读取属性，不解密
+            PKCS12SafeBagFactory factory = PKCSObjectIdentifiers.encryptedData.equals(info.getContentType())
+                    ? new PKCS12SafeBagFactory(info, new JcePKCSPBEInputDecryptorProviderBuilder().setProvider(BC).build(password))
+                    : new PKCS12SafeBagFactory(info);
+            for (PKCS12SafeBag bag : factory.getSafeBags()) {
+                if (PKCSObjectIdentifiers.certBag.equals(bag.getType()) && bag.getBagValue() instanceof X509CertificateHolder) {
+                    certificates.add((X509CertificateHolder) bag.getBagValue());
+                    certKeyIds.add(getLocalKeyId(bag));
+                } else if (PKCSObjectIdentifiers.pkcs8ShroudedKeyBag.equals(bag.getType()) || PKCSObjectIdentifiers.keyBag.equals(bag.getType())) {
+                    ASN1Primitive keyId = getLocalKeyId(bag);
+                    if (keyId != null) {
+                        keyIds.add(keyId);
+                    }
+                }
+            }
+        }
+        if (certificates.isEmpty()) {
+            throw new IllegalArgumentException("PFX中没有证书");
+        }
+        for (int i = 0; i < certificates.size(); i++) {
+            if (certKeyIds.get(i) != null && keyIds.contains(certKeyIds.get(i))) {
+                return toCertificate(certificates.get(i).getEncoded());
+            }
+        }
+        return toCertificate(certificates.get(0).getEncoded());
+    }
+
+    private static ASN1Primitive getLocalKeyId(PKCS12SafeBag bag) {
+        Attribute[] attributes = bag.getAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        for (Attribute attribute : attributes) {
+            if (PKCSObjectIdentifiers.pkcs_9_at_localKeyId.equals(attribute.getAttrType()) && attribute.getAttrValues().size() > 0) {
+                return attribute.getAttrValues().getObjectAt(0).toASN1Primitive();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解码证书
+     *
+     * @param certBytes DER或PEM证书
+     * @return 证书
+     */
+    public static X509Certificate toCertificate(byte[] certBytes) throws Exception {
+        return toCertificate(new ByteArrayInputStream(certBytes));
+    }
+
+    /**
+     * 解码证书
+     *
+     * @param in DER或PEM证书
+     * @return 证书
+     */
+    public static X509Certificate toCertificate(InputStream in) throws Exception {
+        CertificateFactory factory = CertificateFactory.getInstance("X.509", BC);
+        return (X509Certificate) factory.generateCertificate(in);
+    }
+
+    /**
+     * 一次取出证书常用字段
+     *
+     * @param certificate 证书
+     * @return 证书信息
+     */
+    public static CertInfo parseCert(X509Certificate certificate) throws Exception {
+        X500Name subject = X500Name.getInstance(certificate.getSubjectX500Principal().getEncoded());
+        X500Name issuer = X500Name.getInstance(certificate.getIssuerX500Principal().getEncoded());
+        String algorithm = SubjectPublicKeyInfo.getInstance(certificate.getPublicKey().getEncoded()).getAlgorithm().getAlgorithm().getId();
+        return new CertInfo(
+                Base64.toBase64String(certificate.getEncoded()),
+                subject.toString(),
+                issuer.toString(),
+                getRdnValue(issuer, BCStyle.CN),
+                certificate.getSerialNumber().toString(16).toUpperCase(),
+                DateUtil.formatDateTime(certificate.getNotBefore()),
+                DateUtil.formatDateTime(certificate.getNotAfter()),
+                algorithm);
+    }
+
+    /**
+     * 证书公钥是否RSA，直接读已解码证书的公钥算法
+     *
+     * @param certificate 证书
+     * @return 是否RSA
+     */
+    public static boolean isRsa(X509Certificate certificate) {
+        return "RSA".equals(certificate.getPublicKey().getAlgorithm());
+    }
+
+    /**
+     * 按OID取证书主题中的属性值(原文，不做RFC 4514转义)，不依赖RDN顺序
+     *
+     * @param certificate 证书
+     * @param oid         属性OID，如BCStyle.SERIALNUMBER
+     * @return 属性值，不存在时返回空字符串
+     */
+    public static String getSubjectValue(X509Certificate certificate, ASN1ObjectIdentifier oid) {
+        RDN[] rdns = X500Name.getInstance(certificate.getSubjectX500Principal().getEncoded()).getRDNs(oid);
+        if (rdns.length == 0) {
+            return "";
+        }
+        ASN1Encodable value = rdns[0].getFirst().getValue();
+        return value instanceof ASN1String ? ((ASN1String) value).getString() : IETFUtils.valueToString(value);
+    }
+
+    private static String getRdnValue(X500Name name, ASN1ObjectIdentifier oid) {
+        RDN[] rdns = name.getRDNs(oid);
+        return rdns.length == 0 ? "" : IETFUtils.valueToString(rdns[0].getFirst().getValue());
+    }
+
+    /**
+     * PFX条目
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class PfxEntry {
+        private final X509Certificate certificate;
+        private final PrivateKey privateKey;
+    }
+
+    /**
+     * 证书信息
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CertInfo {
+        /**
+         * 证书Base64
+         */
+        private final String certBase64;
+
+        /**
+         * 主题
+         */
+        private final String subject;
+
+        /**
+         * 颁发者
+         */
+        private final String issuer;
+
+        /**
+         * 颁发者CN
+         */
+        private final String issuerCn;
+
+        /**
+         * 序列号(HEX)
+         */
+        private final String serialNumber;
+
+        /**
+         * 生效时间
+         */
+        private final String notBefore;
+
+        /**
+         * 失效时间
+         */
+        private final String notAfter;
+
+        /**
+         * 公钥算法OID
+         */
+        private final String algorithm;
+
+        public boolean isRsa() {
+            return algorithm.startsWith(RSA_OID);
+        }
+    }
+}
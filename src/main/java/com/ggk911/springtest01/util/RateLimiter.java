@@ -0,0 +1,51 @@
+package com.ggk911.springtest01.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 匀速限流器
+ * 按固定间隔发放许可，多线程共享时总速率不超过设定值
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-02 09:30
+ **/
+public class RateLimiter {
+
+    /**
+     * 许可间隔(纳秒)，0表示不限流
+     */
+    private final long intervalNanos;
+
+    /**
+     * 下一个许可可用的时间点
+     */
+    private long nextFreeNanos = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond 每秒许可数，小于等于0不限流
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+
+    /**
+     * 获取一个许可，必要时阻塞等待
+     */
+    public void acquire() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (nextFreeNanos < now) {
+                nextFreeNanos = now;
+            }
+            waitNanos = nextFreeNanos - now;
+            nextFreeNanos += intervalNanos;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.ggk911.springtest01.util;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BouncyCastle提供者及JCA实例缓存
+ * 提供者在类加载时注册一次(启动时由{@link #init()}触发)；KeyFactory、Cipher按线程、按算法缓存
+ * 缓存的Cipher每次使用前必须重新init，且不能在同一线程中嵌套使用同一算法的实例
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-31 09:40
+ **/
+public class SecurityProviderUtil {
+
+    /**
+     * 全局唯一的BouncyCastle提供者
+     */
+    public static final Provider BC;
+
+    static {
+        Provider provider = Security.getProvider(BouncyCastleProvider.PROVIDER_NAME);
+        if (provider == null) {
+            provider = new BouncyCastleProvider();
+            Security.addProvider(provider);
+        }
+        BC = provider;
+    }
+
+    private static final ThreadLocal<Map<String, KeyFactory>> KEY_FACTORIES = ThreadLocal.withInitial(HashMap::new);
+
+    private static final ThreadLocal<Map<String, Cipher>> CIPHERS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * 注册BouncyCastle提供者(幂等)
+     */
+    public static void init() {
+        // 触发静态代码块
+    }
+
+    /**
+     * 当前线程的KeyFactory(默认提供者)
+     *
+     * @param algorithm 算法，如RSA
+     * @return KeyFactory
+     */
+    public static KeyFactory keyFactory(String algorithm) throws NoSuchAlgorithmException {
+        Map<String, KeyFactory> cache = KEY_FACTORIES.get();
+        KeyFactory keyFactory = cache.get(algorithm);
+        if (keyFactory == null) {
+            keyFactory = KeyFactory.getInstance(algorithm);
+            cache.put(algorithm, keyFactory);
+        }
+        return keyFactory;
+    }
+
+    /**
+     * 当前线程的Cipher(默认提供者)，使用前须init
+     *
+     * @param transformation 转换，如RSA
+     * @return Cipher
+     */
+    public static Cipher cipher(String transformation) throws NoSuchAlgorithmException, NoSuchPaddingException {
+        Map<String, Cipher> cache = CIPHERS.get();
+        Cipher cipher = cache.get(transformation);
+        if (cipher == null) {
+            cipher = Cipher.getInstance(transformation);
+            cache.put(transformation, cipher);
+        }
+        return cipher;
+    }
+}
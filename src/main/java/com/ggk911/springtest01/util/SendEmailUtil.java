@@ -1,21 +1,33 @@
 package com.ggk911.springtest01.util;
 
-import lombok.RequiredArgsConstructor;
+import cn.hutool.core.io.IORuntimeException;
+import com.ggk911.springtest01.config.properties.MailPoolConfig;
+import com.ggk911.springtest01.service.impl.MailOutboxServiceImpl;
+import com.ggk911.springtest01.util.executor.ExecutorRegistry;
+import com.ggk911.springtest01.util.executor.ExecutorType;
+import com.ggk911.springtest01.util.mail.AttachmentSources;
+import com.ggk911.springtest01.util.mail.BulkSendResult;
+import com.ggk911.springtest01.util.mail.EncodedAttachment;
+import com.ggk911.springtest01.util.mail.MailMessage;
+import com.ggk911.springtest01.util.mail.PooledJavaMailSender;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import javax.activation.DataSource;
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.stream.Stream;
 
 /**
  * 发送邮件工具类
@@ -26,21 +38,174 @@ import java.nio.charset.StandardCharsets;
 @Slf4j
 @Service
 public class SendEmailUtil {
-    private JavaMailSender mailSender;
-
-    private void iniSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
-        mailSender.setHost("smtp.163.com");
-        mailSender.setProtocol("smtp");
-        mailSender.setPort(587);
-        mailSender.setUsername("");
-        mailSender.setPassword("");
-        mailSender.setDefaultEncoding(StandardCharsets.UTF_8.name());
-        this.mailSender = mailSender;
+    /**
+     * 使用SMTP连接池的发送器，连接在发送线程间复用
+     */
+    @Resource(name = "PooledMailSender")
+    private PooledJavaMailSender mailSender;
+
+    @Resource
+    private MailPoolConfig mailPoolConfig;
+
+    @Resource
+    private ExecutorRegistry executorRegistry;
+
+    @Resource
+    private MailOutboxServiceImpl mailOutboxService;
+
+    /**
+     * 批量发送限流，所有批量任务共享
+     */
+    private volatile RateLimiter bulkRateLimiter;
+
+    @PostConstruct
+    public void init() {
+        bulkRateLimiter = new RateLimiter(mailPoolConfig.getBulkRatePerSecond());
     }
 
     /**
-     * 发送邮件（带附件）
+     * 批量发送邮件
+     * 按批次切分，每批占用一个SMTP连接连续发送(不重连)，最多同时占用 连接池大小 - bulk-reserved-connections 个连接，
+     * 其余连接留给单封发送和发件箱，避免批量限流等待时占满连接池；总速率受bulk-rate-per-second限制
+     * 邮件按需从迭代器中取出并构建，调用方线程阻塞直到全部发送完成
+     * 附件在写出时才从数据源读取，同一附件发给多人时共用一个文件或MinIO数据源即可
+     *
+     * @param messages 待发送邮件
+     * @return 发送结果
+     */
+    public BulkSendResult sendBulk(Iterator<MailMessage> messages) {
+        long start = MeterUtil.start();
+        BulkSendResult result = new BulkSendResult();
+        int batchSize = Math.max(1, mailPoolConfig.getBulkBatchSize());
+        int window = Math.max(1, mailSender.getTransportPool().getMaxConnections() - mailPoolConfig.getBulkReservedConnections());
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(executorRegistry.executor(ExecutorType.EMAIL));
+        int inFlight = 0;
+        int nextIndex = 0;
+        while (messages.hasNext()) {
+            int firstIndex = nextIndex;
+            List<MailMessage> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && messages.hasNext()) {
+                batch.add(messages.next());
+            }
+            nextIndex += batch.size();
+            if (inFlight == window) {
+                awaitBatch(completionService);
+                inFlight--;
+            }
+            completionService.submit(() -> {
+                sendBatch(batch, firstIndex, result);
+                return null;
+            });
+            inFlight++;
+        }
+        for (; inFlight > 0; inFlight--) {
+            awaitBatch(completionService);
+        }
+        MeterUtil.stop(start, "mail.operation", "bulk", result.getFailed() == 0 ? MeterUtil.SUCCESS : MeterUtil.ERROR);
+        log.info("批量发送邮件完成，成功：{}，失败：{}", result.getSent(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * 批量发送邮件
+     *
+     * @param messages 待发送邮件
+     * @return 发送结果
+     * @see #sendBulk(Iterator)
+     */
+    public BulkSendResult sendBulk(Stream<MailMessage> messages) {
+        return sendBulk(messages.iterator());
+    }
+
+    /**
+     * 同一附件群发多人，附件只编码一次，所有邮件共用编码结果
+     *
+     * @param receiveAddresses 收件地址，每个地址一封
+     * @param subject          标题
+     * @param content          内容
+     * @param isHtml           是否html
+     * @param attachment       附件数据源
+     * @param fileOriName      文件全名
+     * @return 发送结果
+     */
+    public BulkSendResult sendBulk(Collection<String> receiveAddresses, String subject, String content, boolean isHtml,
+                                   DataSource attachment, String fileOriName) {
+        EncodedAttachment encoded;
+        try {
+            encoded = MeterUtil.time("mail.operation", "encode",
+                    () -> EncodedAttachment.encode(attachment, fileOriName, mailPoolConfig.getSharedAttachmentMemoryBytes()));
+            MeterUtil.bytes("mail.bytes", "encode", "out", encoded.getEncodedSize());
+        } catch (IOException e) {
+            log.error("批量发送邮件附件编码错误：{}", e.getMessage());
+            BulkSendResult result = new BulkSendResult();
+            int index = 0;
+            for (String address : receiveAddresses) {
+                result.recordFailure(index++, address, e);
+            }
+            return result;
+        }
+        try {
+            return sendBulk(receiveAddresses.stream()
+                    .map(address -> new MailMessage(address, subject, content, isHtml, encoded, fileOriName)));
+        } finally {
+            encoded.close();
+        }
+    }
+
+    /**
+     * 在一个连接上发送一批邮件，单封失败不影响后续；每封邮件都会记为成功或失败，不抛异常
+     *
+     * @param batch      本批邮件
+     * @param firstIndex 本批第一封的序号
+     * @param result     发送结果
+     */
+    private void sendBatch(List<MailMessage> batch, int firstIndex, BulkSendResult result) {
+        // 已处理数量
+        int[] processed = {0};
+        try {
+            mailSender.sendBatch(session -> {
+                for (MailMessage message : batch) {
+                    processed[0]++;
+                    try {
+                        bulkRateLimiter.acquire();
+                        MimeMessage mimeMessage = message.toMimeMessage(mailSender, mailPoolConfig.getSender());
+                        mailSender.prepare(mimeMessage);
+                        MeterUtil.run("mail.operation", "send", () -> session.send(mimeMessage));
+                        result.recordSuccess();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        result.recordFailure(firstIndex + processed[0] - 1, message.getTo(), e);
+                        throw new MessagingException("批量发送被中断", e);
+                    } catch (MessagingException | RuntimeException e) {
+                        // 地址/内容为空(IllegalArgumentException)、附件读取失败(IORuntimeException)等只影响本封
+                        log.warn("发送邮件错误,地址：{}；异常：{}", message.getTo(), e.getMessage());
+                        result.recordFailure(firstIndex + processed[0] - 1, message.getTo(), e);
+                    }
+                }
+            });
+        } catch (MessagingException | RuntimeException e) {
+            // 未拿到连接、被中断或连接池异常，本批剩余邮件记为失败
+            log.error("批量发送邮件错误：{}", e.getMessage());
+            for (int i = processed[0]; i < batch.size(); i++) {
+                result.recordFailure(firstIndex + i, batch.get(i).getTo(), e);
+            }
+        }
+    }
+
+    private void awaitBatch(CompletionService<Void> completionService) {
+        try {
+            completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("批量发送被中断", e);
+        } catch (ExecutionException e) {
+            log.error("批量发送邮件错误", e.getCause());
+        }
+    }
+
+    /**
+     * 发送邮件（带附件），写入发件箱后由调度器发送，失败自动重试
+     * 输入流在调用线程中边读边上传到MinIO暂存(各节点均可读取)，不整体读入内存
      *
      * @param subject             标题
      * @param content             内容
@@ -49,26 +214,12 @@ public class SendEmailUtil {
      * @param inputStream         输入流
      * @param fileOriName         文件全名
      */
-    @Async("SendEmailThreadPool")
     public void sendMailWithAttachment(String subject, String content, boolean isHtml, String receiveAddressArray, InputStream inputStream, String fileOriName) {
-        iniSender();
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true);
-            helper.setFrom("");
-            helper.setSubject(subject);
-            helper.setTo(receiveAddressArray);
-            helper.setText(content, isHtml);
-            helper.addAttachment(fileOriName, new ByteArrayResource(IOUtils.toByteArray(inputStream)));
-            mailSender.send(mimeMessage);
-        } catch (MessagingException | IOException e) {
-            log.error("发送邮件错误,地址：{}；异常：{}", receiveAddressArray, e.getMessage());
-            e.printStackTrace();
-        }
+        sendMailWithAttachment(subject, content, isHtml, receiveAddressArray, AttachmentSources.generator(fileOriName, () -> inputStream), fileOriName);
     }
 
     /**
-     * 发送邮件（带附件）
+     * 发送邮件（带附件），写入发件箱后由调度器发送，失败自动重试
      *
      * @param subject             标题
      * @param content             内容
@@ -77,21 +228,28 @@ public class SendEmailUtil {
      * @param bytes               文件byte[]
      * @param fileOriName         文件全名
      */
-    @Async("SendEmailThreadPool")
     public void sendMailWithAttachment(String subject, String content, boolean isHtml, String receiveAddressArray, byte[] bytes, String fileOriName) {
-        iniSender();
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        sendMailWithAttachment(subject, content, isHtml, receiveAddressArray, AttachmentSources.bytes(bytes, fileOriName), fileOriName);
+    }
+
+    /**
+     * 发送邮件（带附件），写入发件箱后由调度器发送，失败自动重试
+     * 本地文件、MinIO对象(见{@link AttachmentSources})只记录路径，发送时才读取
+     *
+     * @param subject             标题
+     * @param content             内容
+     * @param isHtml              是否html
+     * @param receiveAddressArray 收件地址
+     * @param attachment          附件数据源
+     * @param fileOriName         文件全名
+     */
+    public void sendMailWithAttachment(String subject, String content, boolean isHtml, String receiveAddressArray, DataSource attachment, String fileOriName) {
         try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true);
-            helper.setFrom("");
-            helper.setSubject(subject);
-            helper.setTo(receiveAddressArray);
-            helper.setText(content, isHtml);
-            helper.addAttachment(fileOriName, new ByteArrayResource(bytes));
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            log.error("发送邮件错误,地址：{}；异常：{}", receiveAddressArray, e.getMessage());
-            e.printStackTrace();
+            Long id = MeterUtil.time("mail.operation", "enqueue",
+                    () -> mailOutboxService.enqueue(new MailMessage(receiveAddressArray, subject, content, isHtml, attachment, fileOriName)));
+            log.info("邮件已加入发件箱,id：{}，地址：{}", id, receiveAddressArray);
+        } catch (IORuntimeException e) {
+            log.error("发送邮件错误,地址：{}", receiveAddressArray, e);
         }
     }
 }
@@ -0,0 +1,202 @@
+package com.ggk911.springtest01.util;
+
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 签名原文JSON规范化
+ * 原文以fastjson MapSortField/SortField 序列化 {"reqBody":…,"reqHead":…} 为准(null字段省略)，字节按平台默认字符集
+ * 默认字符集为UTF-8且内容只含普通字符时，直接写入线程内复用的缓冲区，满了就交给下游(如签名器update)，不产生中间String；
+ * 含控制字符、U+2028/U+2029、孤立代理等需要转义的字符时交给fastjson序列化
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-29 15:40
+ **/
+public class SignJsonUtil {
+
+    /**
+     * 缓冲区大小
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * 预留给单个字符的最大字节数(UTF-8代理对共4字节)
+     */
+    private static final int MAX_CHAR_BYTES = 4;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+    /**
+     * 平台默认字符集是否UTF-8，否则一律走fastjson + String.getBytes()
+     */
+    private static final boolean DEFAULT_UTF_8 = StandardCharsets.UTF_8.equals(Charset.defaultCharset());
+
+    /**
+     * 字节接收方
+     */
+    @FunctionalInterface
+    public interface ByteSink {
+        void write(byte[] bytes, int off, int len);
+    }
+
+    /**
+     * 写出规范化JSON
+     *
+     * @param reqHead 请求头
+     * @param reqBody 请求体
+     * @param sink    接收方，可能被多次调用
+     */
+    public static void write(String reqHead, String reqBody, ByteSink sink) {
+        if (!DEFAULT_UTF_8 || !isPlain(reqHead) || !isPlain(reqBody)) {
+            byte[] bytes = toJsonString(reqHead, reqBody).getBytes();
+            sink.write(bytes, 0, bytes.length);
+            return;
+        }
+        Writer writer = new Writer(BUFFER.get(), sink);
+        writer.writeByte('{');
+        // 字段按名称排序：reqBody < reqHead
+        boolean first = true;
+        if (reqBody != null) {
+            writer.writeAscii("\"reqBody\":");
+            writer.writeString(reqBody);
+            first = false;
+        }
+        if (reqHead != null) {
+            writer.writeAscii(first ? "\"reqHead\":" : ",\"reqHead\":");
+            writer.writeString(reqHead);
+        }
+        writer.writeByte('}');
+        writer.flush();
+    }
+
+    /**
+     * 规范化JSON字符串
+     *
+     * @param reqHead 请求头
+     * @param reqBody 请求体
+     * @return JSON
+     */
+    public static String toJsonString(String reqHead, String reqBody) {
+        Map<String, String> reqMap = new HashMap<>(2);
+        reqMap.put("reqHead", reqHead);
+        reqMap.put("reqBody", reqBody);
+        return JSONObject.toJSONString(reqMap, SerializerFeature.MapSortField, SerializerFeature.SortField);
+    }
+
+    /**
+     * 规范化JSON字节
+     *
+     * @param reqHead 请求头
+     * @param reqBody 请求体
+     * @return 平台默认字符集字节，同toJsonString(reqHead, reqBody).getBytes()
+     */
+    public static byte[] toBytes(String reqHead, String reqBody) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(estimateSize(reqHead) + estimateSize(reqBody) + 24);
+        write(reqHead, reqBody, out::write);
+        return out.toByteArray();
+    }
+
+    private static int estimateSize(String value) {
+        return value == null ? 0 : value.length() + 2;
+    }
+
+    /**
+     * 是否只含Writer可直接写出的字符：可打印ASCII、U+00A0起的非ASCII字符(U+2028/U+2029除外)、成对代理
+     */
+    private static boolean isPlain(String value) {
+        if (value == null) {
+            return true;
+        }
+        int len = value.length();
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c < 0x20 || c == 0x7F) {
+                    return false;
+                }
+            } else if (c < 0xA0 || c == '\u2028' || c == '\u2029') {
+                return false;
+            } else if (Character.isHighSurrogate(c)) {
+                if (i + 1 >= len || !Character.isLowSurrogate(value.charAt(++i))) {
+                    return false;
+                }
+            } else if (Character.isLowSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Writer {
+        private final byte[] buf;
+        private final ByteSink sink;
+        private int count;
+
+        Writer(byte[] buf, ByteSink sink) {
+            this.buf = buf;
+            this.sink = sink;
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        void writeAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                writeByte(value.charAt(i));
+            }
+        }
+
+        /**
+         * 只处理isPlain通过的字符串：引号、反斜杠转义，其余按UTF-8原样写出
+         */
+        void writeString(String value) {
+            writeByte('"');
+            int len = value.length();
+            for (int i = 0; i < len; i++) {
+                char c = value.charAt(i);
+                ensure(MAX_CHAR_BYTES);
+                if (c < 0x80) {
+                    if (c == '"' || c == '\\') {
+                        buf[count++] = '\\';
+                    }
+                    buf[count++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[count++] = (byte) (0xC0 | c >> 6);
+                    buf[count++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c)) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    buf[count++] = (byte) (0xF0 | cp >> 18);
+                    buf[count++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    buf[count++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    buf[count++] = (byte) (0x80 | cp & 0x3F);
+                } else {
+                    buf[count++] = (byte) (0xE0 | c >> 12);
+                    buf[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    buf[count++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            writeByte('"');
+        }
+
+        private void ensure(int n) {
+            if (count + n > buf.length) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (count > 0) {
+                sink.write(buf, 0, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.ggk911.springtest01.util;
+
+import cn.com.mcsca.extend.SecuEngine;
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import lombok.SneakyThrows;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.gm.GMNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.SM2Signer;
+import org.bouncycastle.crypto.util.PublicKeyFactory;
+import org.bouncycastle.util.encoders.Base64;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.util.regex.Pattern;
+
+/**
+ * SM2验签工具
+ * 公钥字符串解析结果按字符串缓存，验签只做SM2运算；SecuEngine按线程复用
+ * 只识别GM/T 0009 DER编码的Base64签名值，使用默认用户ID 1234567812345678；签名仍由SDK(SignatureUtil)完成
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-26 14:36
+ **/
+public class Sm2SignUtil {
+
+    /**
+     * SM2曲线参数
+     */
+    private static final ECDomainParameters SM2_DOMAIN;
+
+    static {
+        X9ECParameters x9 = GMNamedCurves.getByName("sm2p256v1");
+        SM2_DOMAIN = new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN(), x9.getH());
+    }
+
+    private static final Pattern HEX_PATTERN = Pattern.compile("^([0-9a-fA-F]{2})+$");
+
+    /**
+     * 已解析公钥
+     */
+    private static final LRUCache<String, ECPublicKeyParameters> PUBLIC_KEY_CACHE = CacheUtil.newLRUCache(1024);
+
+    /**
+     * 按线程复用的SecuEngine
+     */
+    private static final ThreadLocal<SecuEngine> SECU_ENGINE = ThreadLocal.withInitial(Sm2SignUtil::newSecuEngine);
+
+    /**
+     * 当前线程的SecuEngine
+     *
+     * @return SecuEngine
+     */
+    public static SecuEngine secuEngine() {
+        return SECU_ENGINE.get();
+    }
+
+    /**
+     * 对规范化请求JSON验签，JSON分段直接写入签名器
+     *
+     * @param publicKey 已解析公钥
+     * @param reqHead   请求头
+     * @param reqBody   请求体
+     * @param signValue 签名值Base64
+     * @return 是否通过，签名值无法解码时返回false
+     * @see SignJsonUtil
+     */
+    public static boolean verifyJson(ECPublicKeyParameters publicKey, String reqHead, String reqBody, String signValue) {
+        byte[] signature = decodeSignature(signValue);
+        return signature != null && verifyJson(publicKey, reqHead, reqBody, signature);
+    }
+
+    /**
+     * 对规范化请求JSON验签，JSON分段直接写入签名器
+     *
+     * @param publicKey 已解析公钥
+     * @param reqHead   请求头
+     * @param reqBody   请求体
+     * @param signature DER编码签名值，见{@link #decodeSignature(String)}
+     * @return 是否通过
+     * @see SignJsonUtil
+     */
+    public static boolean verifyJson(ECPublicKeyParameters publicKey, String reqHead, String reqBody, byte[] signature) {
+        SM2Signer signer = new SM2Signer();
+        signer.init(false, publicKey);
+        SignJsonUtil.write(reqHead, reqBody, signer::update);
+        return signer.verifySignature(signature);
+    }
+
+    /**
+     * 解码签名值，只接受Base64编码的DER(r,s)
+     * 返回null表示本地无法识别该格式，应交由SecuEngine验签
+     *
+     * @param signValue 签名值
+     * @return DER编码签名值，无法识别时返回null
+     */
+    public static byte[] decodeSignature(String signValue) {
+        if (signValue == null) {
+            return null;
+        }
+        try {
+            byte[] der = Base64.decode(signValue.trim());
+            ASN1Sequence sequence = ASN1Sequence.getInstance(der);
+            if (sequence.size() != 2
+                    || !(sequence.getObjectAt(0) instanceof ASN1Integer)
+                    || !(sequence.getObjectAt(1) instanceof ASN1Integer)) {
+                return null;
+            }
+            return der;
+        } catch (RuntimeException e) {
+            // Base64解码失败(DecoderException)或非DER序列
+            return null;
+        }
+    }
+
+    /**
+     * 验签
+     *
+     * @param pubKey    公钥(Base64或HEX，64/65字节点或X.509 SubjectPublicKeyInfo)
+     * @param data      原文
+     * @param signValue 签名值Base64
+     * @return 是否通过，签名值无法解码时返回false
+     */
+    public static boolean verify(String pubKey, byte[] data, String signValue) {
+        return verify(parsePublicKey(pubKey), data, 0, data.length, signValue);
+    }
+
+    /**
+     * 验签
+     *
+     * @param publicKey 已解析公钥
+     * @param data      原文
+     * @param off       起始位置
+     * @param len       长度
+     * @param signValue 签名值Base64
+     * @return 是否通过，签名值无法解码时返回false
+     */
+    public static boolean verify(ECPublicKeyParameters publicKey, byte[] data, int off, int len, String signValue) {
+        byte[] signature = decodeSignature(signValue);
+        if (signature == null) {
+            return false;
+        }
+        SM2Signer signer = new SM2Signer();
+        signer.init(false, publicKey);
+        signer.update(data, off, len);
+        return signer.verifySignature(signature);
+    }
+
+    /**
+     * 解析公钥(带缓存)
+     *
+     * @param pubKey 公钥(Base64或HEX，64/65/33字节点或X.509 SubjectPublicKeyInfo)
+     * @return 公钥，无法解析抛出IllegalArgumentException
+     */
+    public static ECPublicKeyParameters parsePublicKey(String pubKey) {
+        ECPublicKeyParameters publicKey = PUBLIC_KEY_CACHE.get(pubKey);
+        if (publicKey != null) {
+            return publicKey;
+        }
+        byte[] bytes = decode(pubKey);
+        try {
+            if (bytes.length == 64) {
+                // 裸公钥X||Y
+                byte[] point = new byte[65];
+                point[0] = 0x04;
+                System.arraycopy(bytes, 0, point, 1, 64);
+                bytes = point;
+            }
+            if (bytes.length == 65 && bytes[0] == 0x04 || bytes.length == 33 && (bytes[0] == 0x02 || bytes[0] == 0x03)) {
+                publicKey = new ECPublicKeyParameters(SM2_DOMAIN.getCurve().decodePoint(bytes), SM2_DOMAIN);
+            } else {
+                AsymmetricKeyParameter keyParameter = PublicKeyFactory.createKey(bytes);
+                if (!(keyParameter instanceof ECPublicKeyParameters)) {
+                    throw new IllegalArgumentException("非SM2公钥");
+                }
+                publicKey = (ECPublicKeyParameters) keyParameter;
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("公钥解析失败", e);
+        }
+        PUBLIC_KEY_CACHE.put(pubKey, publicKey);
+        return publicKey;
+    }
+
+    /**
+     * HEX或Base64解码
+     */
+    private static byte[] decode(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("密钥为空");
+        }
+        String trimmed = key.trim();
+        try {
+            return HEX_PATTERN.matcher(trimmed).matches() ? Hex.decode(trimmed) : Base64.decode(trimmed);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("密钥解码失败", e);
+        }
+    }
+
+    @SneakyThrows
+    private static SecuEngine newSecuEngine() {
+        return new SecuEngine();
+    }
+}
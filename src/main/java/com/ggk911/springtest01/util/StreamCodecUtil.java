@@ -0,0 +1,173 @@
+package com.ggk911.springtest01.util;
+
+import org.bouncycastle.util.encoders.Base64Encoder;
+import org.bouncycastle.util.encoders.Encoder;
+import org.bouncycastle.util.encoders.HexEncoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * HEX/BASE64流式编解码
+ * 按固定大小分段读取、编解码、写出，内存占用与数据大小无关
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-30 10:05
+ **/
+public class StreamCodecUtil {
+
+    /**
+     * 分段大小，同时是3(BASE64编码)、4(BASE64解码)、2(HEX解码)的整数倍，保证每段都在编码单元边界上
+     */
+    private static final int CHUNK_SIZE = 12 * 1024;
+
+    private static final Encoder HEX = new HexEncoder();
+
+    private static final Encoder BASE64 = new Base64Encoder();
+
+    /**
+     * HEX编码
+     *
+     * @param in  原始数据
+     * @param out HEX
+     */
+    public static void hexEncode(InputStream in, OutputStream out) throws IOException {
+        encode(in, out, HEX);
+    }
+
+    /**
+     * HEX解码，忽略空白字符
+     *
+     * @param in  HEX
+     * @param out 原始数据
+     */
+    public static void hexDecode(InputStream in, OutputStream out) throws IOException {
+        decode(in, out, HEX);
+    }
+
+    /**
+     * BASE64编码
+     *
+     * @param in  原始数据
+     * @param out BASE64
+     */
+    public static void base64Encode(InputStream in, OutputStream out) throws IOException {
+        encode(in, out, BASE64);
+    }
+
+    /**
+     * BASE64解码，忽略空白字符(可直接处理PEM正文)
+     *
+     * @param in  BASE64
+     * @param out 原始数据
+     */
+    public static void base64Decode(InputStream in, OutputStream out) throws IOException {
+        decode(in, out, BASE64);
+    }
+
+    /**
+     * HEX转BASE64
+     *
+     * @param in  HEX
+     * @param out BASE64
+     */
+    public static void hexToBase64(InputStream in, OutputStream out) throws IOException {
+        EncodingOutputStream encoding = new EncodingOutputStream(BASE64, out);
+        decode(in, encoding, HEX);
+        encoding.finish();
+    }
+
+    /**
+     * BASE64转HEX
+     *
+     * @param in  BASE64
+     * @param out HEX
+     */
+    public static void base64ToHex(InputStream in, OutputStream out) throws IOException {
+        EncodingOutputStream encoding = new EncodingOutputStream(HEX, out);
+        decode(in, encoding, BASE64);
+        encoding.finish();
+    }
+
+    private static void encode(InputStream in, OutputStream out, Encoder encoder) throws IOException {
+        EncodingOutputStream encoding = new EncodingOutputStream(encoder, out);
+        byte[] buf = new byte[CHUNK_SIZE];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            encoding.write(buf, 0, n);
+        }
+        encoding.finish();
+    }
+
+    private static void decode(InputStream in, OutputStream out, Encoder encoder) throws IOException {
+        byte[] buf = new byte[CHUNK_SIZE];
+        byte[] data = new byte[CHUNK_SIZE];
+        int count = 0;
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            for (int i = 0; i < n; i++) {
+                byte b = buf[i];
+                if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                    continue;
+                }
+                data[count++] = b;
+                if (count == data.length) {
+                    encoder.decode(data, 0, count, out);
+                    count = 0;
+                }
+            }
+        }
+        if (count > 0) {
+            encoder.decode(data, 0, count, out);
+        }
+    }
+
+    /**
+     * 写入即编码的输出流，只在编码单元边界上分段编码，finish时编码剩余部分(含BASE64填充)
+     */
+    private static class EncodingOutputStream extends OutputStream {
+        private final Encoder encoder;
+        private final OutputStream out;
+        private final byte[] buf = new byte[CHUNK_SIZE];
+        private int count;
+
+        EncodingOutputStream(Encoder encoder, OutputStream out) {
+            this.encoder = encoder;
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buf[count++] = (byte) b;
+            if (count == buf.length) {
+                encoder.encode(buf, 0, count, out);
+                count = 0;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, buf.length - count);
+                System.arraycopy(b, off, buf, count, n);
+                count += n;
+                off += n;
+                len -= n;
+                if (count == buf.length) {
+                    // 缓冲区大小是编码单元的整数倍，满时整段编码
+                    encoder.encode(buf, 0, count, out);
+                    count = 0;
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            if (count > 0) {
+                encoder.encode(buf, 0, count, out);
+                count = 0;
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ggk911.springtest01.util.bulkhead;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 舱壁：限制同类操作的并发数和排队数，超出时快速拒绝
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-18 10:05
+ **/
+@Getter
+public class Bulkhead {
+
+    /**
+     * 名称
+     */
+    private final String name;
+
+    /**
+     * 最大并发数
+     */
+    private final int maxConcurrent;
+
+    /**
+     * 最大排队数，0表示不排队
+     */
+    private final int maxQueue;
+
+    /**
+     * 排队最长等待毫秒
+     */
+    private final long maxWaitMillis;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueue, long maxWaitMillis) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 在舱壁内执行
+     *
+     * @param supplier 操作
+     * @return 操作结果
+     */
+    public <T> T execute(Supplier<T> supplier) {
+        acquire();
+        try {
+            return supplier.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 在舱壁内执行
+     *
+     * @param runnable 操作
+     */
+    public void run(Runnable runnable) {
+        acquire();
+        try {
+            runnable.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 在舱壁内执行(可抛受检异常)
+     *
+     * @param callable 操作
+     * @return 操作结果
+     */
+    public <T> T call(Callable<T> callable) throws Exception {
+        acquire();
+        try {
+            return callable.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 获取许可，排队已满或等待超时抛出BulkheadFullException
+     */
+    @SneakyThrows
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            acceptedCount.incrementAndGet();
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            throw new BulkheadFullException(name);
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            rejectedCount.incrementAndGet();
+            throw new BulkheadFullException(name);
+        }
+        acceptedCount.incrementAndGet();
+    }
+
+    /**
+     * 当前执行中数量
+     */
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * 当前排队数量
+     */
+    public int getQueuedCount() {
+        return waiting.get();
+    }
+}
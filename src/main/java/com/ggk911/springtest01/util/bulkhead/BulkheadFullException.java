@@ -0,0 +1,18 @@
+package com.ggk911.springtest01.util.bulkhead;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 舱壁已满，快速拒绝(HTTP 429)
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-18 09:52
+ **/
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String name) {
+        super("服务繁忙，请稍后重试：" + name);
+    }
+}
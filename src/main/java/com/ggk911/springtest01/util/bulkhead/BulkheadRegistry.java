@@ -0,0 +1,55 @@
+package com.ggk911.springtest01.util.bulkhead;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 舱壁注册表
+ * 未配置的类型使用BulkheadType中的默认值
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-18 10:31
+ **/
+@Slf4j
+public class BulkheadRegistry {
+
+    /**
+     * 写时复制，读取无锁
+     */
+    private static volatile Map<BulkheadType, Bulkhead> bulkheads;
+
+    static {
+        Map<BulkheadType, Bulkhead> map = new EnumMap<>(BulkheadType.class);
+        for (BulkheadType type : BulkheadType.values()) {
+            map.put(type, new Bulkhead(type.getCode(), type.getMaxConcurrent(), type.getMaxQueue(), type.getMaxWaitMillis()));
+        }
+        bulkheads = map;
+    }
+
+    /**
+     * 获取舱壁
+     *
+     * @param type 类型
+     * @return 舱壁
+     */
+    public static Bulkhead get(BulkheadType type) {
+        return bulkheads.get(type);
+    }
+
+    /**
+     * 配置舱壁(已在执行中的操作仍归还到旧舱壁)
+     *
+     * @param type          类型
+     * @param maxConcurrent 最大并发数
+     * @param maxQueue      最大排队数
+     * @param maxWaitMillis 排队最长等待毫秒
+     */
+    public static synchronized void configure(BulkheadType type, int maxConcurrent, int maxQueue, long maxWaitMillis) {
+        Map<BulkheadType, Bulkhead> map = new EnumMap<>(bulkheads);
+        map.put(type, new Bulkhead(type.getCode(), maxConcurrent, maxQueue, maxWaitMillis));
+        bulkheads = map;
+        log.info("舱壁配置，{}：并发{}，排队{}，等待{}ms", type.getCode(), maxConcurrent, maxQueue, maxWaitMillis);
+    }
+}
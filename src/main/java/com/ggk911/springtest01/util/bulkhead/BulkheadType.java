@@ -0,0 +1,40 @@
+package com.ggk911.springtest01.util.bulkhead;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 舱壁类型，每种类型的并发与排队互相隔离
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-18 09:40
+ **/
+@Getter
+@AllArgsConstructor
+public enum BulkheadType {
+    /**
+     * 默认并发数、默认排队数、默认排队等待毫秒
+     */
+    PDF("pdf", "PDF填充/解析", 8, 16, 2000),
+    SEAL("seal", "图章生成", 16, 32, 1000),
+    WORD("word", "WORD填充/解析", 4, 8, 3000),
+    ASPOSE("aspose", "Aspose格式转换", 2, 4, 5000),
+    ;
+    private final String code;
+    private final String msg;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+
+    public static BulkheadType getEnumByCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        for (BulkheadType type : values()) {
+            if (type.getCode().equalsIgnoreCase(code.trim())) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
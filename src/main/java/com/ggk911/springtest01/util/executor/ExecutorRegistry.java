@@ -0,0 +1,154 @@
+package com.ggk911.springtest01.util.executor;
+
+import com.ggk911.springtest01.config.properties.ExecutorConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池注册表
+ * 按application.yml中executor.pools创建各类型线程池，未配置的类型使用ExecutorType中的默认值
+ * 开启executor.virtual-threads且运行在JDK 21+时，阻塞IO类任务改用虚拟线程(每任务一个)，否则使用对应线程池
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-07 10:05
+ **/
+@Slf4j
+@Component
+public class ExecutorRegistry {
+
+    private final Map<ExecutorType, MeteredThreadPoolExecutor> executors = new EnumMap<>(ExecutorType.class);
+
+    /**
+     * 虚拟线程执行器，未开启或JDK不支持时为null
+     */
+    private final ExecutorService virtualExecutor;
+
+    private final AtomicInteger virtualActive = new AtomicInteger();
+
+    public ExecutorRegistry(ExecutorConfig executorConfig) {
+        for (String code : executorConfig.getPools().keySet()) {
+            if (ExecutorType.getEnumByCode(code) == null) {
+                throw new IllegalArgumentException("未知线程池类型：" + code);
+            }
+        }
+        for (ExecutorType type : ExecutorType.values()) {
+            ExecutorConfig.Pool pool = executorConfig.getPools().entrySet().stream()
+                    .filter(entry -> ExecutorType.getEnumByCode(entry.getKey()) == type)
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse(null);
+            MeteredThreadPoolExecutor executor = pool == null
+                    ? new MeteredThreadPoolExecutor(type.getCode(), type.getCorePoolSize(), type.getMaxPoolSize(), type.getQueueCapacity(), 60, true)
+                    : new MeteredThreadPoolExecutor(type.getCode(), pool.getCorePoolSize(), pool.getMaxPoolSize(), pool.getQueueCapacity(),
+                    pool.getKeepAliveSeconds(), pool.isCallerRuns());
+            executors.put(type, executor);
+            log.info("线程池配置，{}：核心{}，最大{}，队列{}", type.getCode(), executor.getCorePoolSize(), executor.getMaximumPoolSize(), executor.getQueueCapacity());
+        }
+        virtualExecutor = executorConfig.isVirtualThreads() ? newVirtualExecutor() : null;
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，编译目标仍为Java 8
+     *
+     * @return 执行器，JDK不支持时返回null
+     */
+    private static ExecutorService newVirtualExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "Thread-virtual-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+            log.info("阻塞IO任务使用虚拟线程，JDK：{}", System.getProperty("java.version"));
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            log.warn("当前JDK({})不支持虚拟线程，阻塞IO任务仍使用线程池", System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    /**
+     * 获取线程池
+     *
+     * @param type 类型
+     * @return 线程池
+     */
+    public MeteredThreadPoolExecutor get(ExecutorType type) {
+        return executors.get(type);
+    }
+
+    /**
+     * 获取执行器：阻塞IO类型在虚拟线程模式下返回虚拟线程执行器，否则返回线程池
+     *
+     * @param type 类型
+     * @return 执行器
+     */
+    public Executor executor(ExecutorType type) {
+        if (virtualExecutor == null || !type.isBlockingIo()) {
+            return get(type);
+        }
+        return command -> virtualExecutor.execute(() -> {
+            virtualActive.incrementAndGet();
+            try {
+                command.run();
+            } finally {
+                virtualActive.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 是否已启用虚拟线程
+     */
+    public boolean isVirtualThreads() {
+        return virtualExecutor != null;
+    }
+
+    /**
+     * 执行中的虚拟线程任务数
+     */
+    public int getVirtualActive() {
+        return virtualActive.get();
+    }
+
+    /**
+     * 调整线程数
+     *
+     * @param type         类型
+     * @param corePoolSize 核心线程数
+     * @param maxPoolSize  最大线程数
+     */
+    public void resize(ExecutorType type, int corePoolSize, int maxPoolSize) {
+        get(type).resize(corePoolSize, maxPoolSize);
+        log.info("线程池调整，{}：核心{}，最大{}", type.getCode(), corePoolSize, maxPoolSize);
+    }
+
+    /**
+     * 等待已提交任务结束后关闭
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executors.values().forEach(MeteredThreadPoolExecutor::shutdown);
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+            if (!virtualExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("虚拟线程执行器关闭超时，剩余任务{}", virtualExecutor.shutdownNow().size());
+            }
+        }
+        for (MeteredThreadPoolExecutor executor : executors.values()) {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("线程池{}关闭超时，剩余任务{}", executor.getName(), executor.shutdownNow().size());
+            }
+        }
+    }
+}
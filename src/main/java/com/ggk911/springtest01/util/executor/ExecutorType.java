@@ -0,0 +1,42 @@
+package com.ggk911.springtest01.util.executor;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 线程池类型，每种类型一个独立线程池
+ * PDF、WORD、图章在请求线程上执行，只由舱壁(BulkheadType)限制并发，不再单独设线程池
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-07 09:30
+ **/
+@Getter
+@AllArgsConstructor
+public enum ExecutorType {
+    /**
+     * 默认核心线程数、默认最大线程数、默认队列容量、是否阻塞IO(可改用虚拟线程)
+     */
+    EMAIL("email", "邮件发送", 5, 10, 100, true),
+    STORAGE("storage", "MinIO存储", 8, 32, 200, true),
+    CERT("cert", "证书批处理", Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors(),
+            Runtime.getRuntime().availableProcessors() * 8, false),
+    ;
+    private final String code;
+    private final String msg;
+    private final int corePoolSize;
+    private final int maxPoolSize;
+    private final int queueCapacity;
+    private final boolean blockingIo;
+
+    public static ExecutorType getEnumByCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        for (ExecutorType type : values()) {
+            if (type.getCode().equalsIgnoreCase(code.trim())) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
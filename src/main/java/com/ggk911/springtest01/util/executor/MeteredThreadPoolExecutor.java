@@ -0,0 +1,172 @@
+package com.ggk911.springtest01.util.executor;
+
+import lombok.Getter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带统计的线程池：拒绝次数、排队等待耗时、执行耗时
+ * 核心/最大线程数可在运行中调整，队列容量创建后不可变
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-07 09:45
+ **/
+public class MeteredThreadPoolExecutor extends ThreadPoolExecutor {
+
+    /**
+     * 名称
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 队列容量，0表示不排队
+     */
+    @Getter
+    private final int queueCapacity;
+
+    private final AtomicLong rejectedCount;
+
+    private final AtomicLong executedCount = new AtomicLong();
+
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private final AtomicLong executionNanos = new AtomicLong();
+
+    /**
+     * @param name             名称，用于线程名
+     * @param corePoolSize     核心线程数
+     * @param maxPoolSize      最大线程数
+     * @param queueCapacity    队列容量，0表示不排队
+     * @param keepAliveSeconds 线程活跃时间(秒)
+     * @param callerRuns       队列满时是否由提交线程执行，否则抛出RejectedExecutionException
+     */
+    public MeteredThreadPoolExecutor(String name, int corePoolSize, int maxPoolSize, int queueCapacity, long keepAliveSeconds, boolean callerRuns) {
+        this(name, corePoolSize, maxPoolSize, queueCapacity, keepAliveSeconds,
+                new CountingRejectedHandler(callerRuns ? new CallerRunsPolicy() : new AbortPolicy()));
+    }
+
+    private MeteredThreadPoolExecutor(String name, int corePoolSize, int maxPoolSize, int queueCapacity, long keepAliveSeconds,
+                                      CountingRejectedHandler rejectedHandler) {
+        super(corePoolSize, maxPoolSize, keepAliveSeconds, TimeUnit.SECONDS, newQueue(queueCapacity),
+                new CustomizableThreadFactory("Thread-" + name + "-"), rejectedHandler);
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.rejectedCount = rejectedHandler.count;
+    }
+
+    private static BlockingQueue<Runnable> newQueue(int queueCapacity) {
+        return queueCapacity > 0 ? new LinkedBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        super.execute(new TimedTask(command));
+    }
+
+    /**
+     * 调整线程数，按先后顺序设置避免核心数大于最大数
+     *
+     * @param corePoolSize 核心线程数
+     * @param maxPoolSize  最大线程数
+     */
+    public synchronized void resize(int corePoolSize, int maxPoolSize) {
+        if (corePoolSize < 0 || maxPoolSize <= 0 || maxPoolSize < corePoolSize) {
+            throw new IllegalArgumentException("线程数非法，核心：" + corePoolSize + "，最大：" + maxPoolSize);
+        }
+        if (maxPoolSize >= getMaximumPoolSize()) {
+            setMaximumPoolSize(maxPoolSize);
+            setCorePoolSize(corePoolSize);
+        } else {
+            setCorePoolSize(corePoolSize);
+            setMaximumPoolSize(maxPoolSize);
+        }
+    }
+
+    /**
+     * 排队任务数
+     */
+    public int getQueueSize() {
+        return getQueue().size();
+    }
+
+    /**
+     * 被拒绝任务数(含由提交线程执行的)
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 已执行完成任务数
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * 排队等待总耗时(毫秒)
+     */
+    public double getWaitMillis() {
+        return waitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 执行总耗时(毫秒)
+     */
+    public double getExecutionMillis() {
+        return executionNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 记录排队与执行耗时
+     */
+    private class TimedTask implements Runnable {
+        private final Runnable delegate;
+        private final long submitted = System.nanoTime();
+
+        TimedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            waitNanos.addAndGet(start - submitted);
+            try {
+                delegate.run();
+            } finally {
+                executionNanos.addAndGet(System.nanoTime() - start);
+                executedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 计数后交给原拒绝策略
+     */
+    private static class CountingRejectedHandler implements RejectedExecutionHandler {
+        private final AtomicLong count = new AtomicLong();
+        private final RejectedExecutionHandler delegate;
+
+        CountingRejectedHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            count.incrementAndGet();
+            delegate.rejectedExecution(r, executor);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ggk911.springtest01.util.mail;
+
+import com.ggk911.springtest01.util.MinioUtil;
+import lombok.Getter;
+
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
+import javax.activation.FileTypeMap;
+import javax.mail.util.ByteArrayDataSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 邮件附件数据源
+ * 附件内容在发送(写出MIME)时才从数据源读取，不整体读入内存；同一数据源可被多封邮件共用
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-06 09:40
+ **/
+public class AttachmentSources {
+
+    private AttachmentSources() {
+    }
+
+    /**
+     * 本地文件
+     *
+     * @param file 文件
+     * @return 数据源
+     */
+    public static DataSource file(File file) {
+        return new FileDataSource(file);
+    }
+
+    /**
+     * MinIO对象，每次读取重新打开对象流
+     *
+     * @param minioUtil  minio
+     * @param objectName 对象路径
+     * @return 数据源
+     */
+    public static MinioDataSource minio(MinioUtil minioUtil, String objectName) {
+        return new MinioDataSource(minioUtil, objectName);
+    }
+
+    /**
+     * 生成器，每次读取调用一次supplier
+     *
+     * @param name     文件名，用于推断类型
+     * @param supplier 流提供者
+     * @return 数据源
+     */
+    public static DataSource generator(String name, StreamSupplier supplier) {
+        return new GeneratorDataSource(name, supplier);
+    }
+
+    /**
+     * 内存字节，调用方已持有byte[]时使用
+     *
+     * @param bytes 内容
+     * @param name  文件名，用于推断类型
+     * @return 数据源
+     */
+    public static DataSource bytes(byte[] bytes, String name) {
+        ByteArrayDataSource dataSource = new ByteArrayDataSource(bytes, contentType(name));
+        dataSource.setName(name);
+        return dataSource;
+    }
+
+    private static String contentType(String name) {
+        return FileTypeMap.getDefaultFileTypeMap().getContentType(name == null ? "" : name);
+    }
+
+    /**
+     * 附件流提供者
+     */
+    @FunctionalInterface
+    public interface StreamSupplier {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * 只读数据源
+     */
+    private abstract static class ReadOnlyDataSource implements DataSource {
+        @Override
+        public String getContentType() {
+            return contentType(getName());
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("附件数据源只读");
+        }
+    }
+
+    /**
+     * MinIO对象数据源
+     */
+    @Getter
+    public static class MinioDataSource extends ReadOnlyDataSource {
+        private final MinioUtil minioUtil;
+        private final String objectName;
+
+        private MinioDataSource(MinioUtil minioUtil, String objectName) {
+            this.minioUtil = minioUtil;
+            this.objectName = objectName;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return minioUtil.openStream(objectName);
+        }
+
+        @Override
+        public String getName() {
+            return objectName.substring(objectName.lastIndexOf('/') + 1);
+        }
+    }
+
+    /**
+     * 生成器数据源
+     */
+    private static class GeneratorDataSource extends ReadOnlyDataSource {
+        private final String name;
+        private final StreamSupplier supplier;
+
+        private GeneratorDataSource(String name, StreamSupplier supplier) {
+            this.name = name;
+            this.supplier = supplier;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return supplier.open();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
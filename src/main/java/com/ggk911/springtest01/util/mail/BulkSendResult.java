@@ -0,0 +1,76 @@
+package com.ggk911.springtest01.util.mail;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量发送结果
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-02 09:55
+ **/
+public class BulkSendResult {
+
+    /**
+     * 最多记录的失败明细数
+     */
+    private static final int MAX_FAILURES = 1000;
+
+    private final AtomicInteger sent = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * 失败明细(邮件序号 -> 失败信息)，序号从0开始按传入顺序编号，同一地址出现多次时各自记录；最多{@value MAX_FAILURES}条
+     */
+    @Getter
+    private final Map<Integer, Failure> failures = new ConcurrentSkipListMap<>();
+
+    public void recordSuccess() {
+        sent.incrementAndGet();
+    }
+
+    public void recordFailure(int index, String to, Exception e) {
+        if (failed.incrementAndGet() <= MAX_FAILURES) {
+            failures.put(index, new Failure(to, String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * 发送成功数
+     */
+    public int getSent() {
+        return sent.get();
+    }
+
+    /**
+     * 发送失败数
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * 失败信息
+     */
+    @Getter
+    public static class Failure {
+        /**
+         * 收件地址
+         */
+        private final String to;
+
+        /**
+         * 失败原因
+         */
+        private final String reason;
+
+        public Failure(String to, String reason) {
+            this.to = to;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.ggk911.springtest01.util.mail;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import lombok.Getter;
+
+import javax.activation.DataSource;
+import javax.mail.MessagingException;
+import javax.mail.Part;
+import javax.mail.internet.ContentType;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeUtility;
+import javax.mail.internet.ParameterList;
+import javax.mail.internet.SharedInputStream;
+import javax.mail.util.SharedByteArrayInputStream;
+import javax.mail.util.SharedFileInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 预编码附件
+ * 附件只做一次Base64 MIME编码(含部件头)，结果放内存或超过阈值时放临时文件；每封邮件的附件部件共用编码结果，写出时原样拷贝不再编码
+ * 同一附件群发多人时使用，用完需关闭以删除临时文件
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-06 14:20
+ **/
+public class EncodedAttachment implements DataSource, Closeable {
+
+    /**
+     * 默认内存阈值，编码后超过则放临时文件
+     */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 4 * 1024 * 1024;
+
+    /**
+     * RFC 2231参数续行的单段最大长度，保证每行不超过78字符
+     */
+    private static final int PARAMETER_SEGMENT_LENGTH = 60;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final String name;
+
+    private final String contentType;
+
+    /**
+     * 编码后的部件(部件头+Base64内容)
+     */
+    private final SharedInputStream encoded;
+
+    /**
+     * 临时文件，放内存时为null
+     */
+    private final File tempFile;
+
+    /**
+     * 编码后大小(字节)
+     */
+    @Getter
+    private final long encodedSize;
+
+    private EncodedAttachment(String name, String contentType, SharedInputStream encoded, File tempFile, long encodedSize) {
+        this.name = name;
+        this.contentType = contentType;
+        this.encoded = encoded;
+        this.tempFile = tempFile;
+        this.encodedSize = encodedSize;
+    }
+
+    /**
+     * 编码附件
+     *
+     * @param source   附件数据源
+     * @param fileName 附件文件全名
+     * @return 预编码附件
+     */
+    public static EncodedAttachment encode(DataSource source, String fileName) throws IOException {
+        return encode(source, fileName, DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * 编码附件
+     *
+     * @param source          附件数据源
+     * @param fileName        附件文件全名
+     * @param memoryThreshold 内存阈值(字节)，编码后超过则放临时文件
+     * @return 预编码附件
+     */
+    public static EncodedAttachment encode(DataSource source, String fileName, int memoryThreshold) throws IOException {
+        String contentType = source.getContentType();
+        SpillOutputStream out = new SpillOutputStream(memoryThreshold);
+        try {
+            // 文件名按RFC 2231 UTF-8编码，过长时拆为name*0*、name*1*…续行，保证每行不超过SMTP行长限制
+            ContentType type = new ContentType(contentType);
+            ParameterList parameters = type.getParameterList();
+            if (parameters != null) {
+                parameters.remove("name");
+            }
+            StringBuilder headers = new StringBuilder();
+            headers.append("Content-Type: ").append(MimeUtility.fold(14, type.toString()));
+            appendParameter(headers, "name", fileName);
+            headers.append("\r\nContent-Transfer-Encoding: base64\r\nContent-Disposition: ").append(Part.ATTACHMENT);
+            appendParameter(headers, "filename", fileName);
+            headers.append("\r\n\r\n");
+            out.write(headers.toString().getBytes(StandardCharsets.US_ASCII));
+            try (InputStream in = source.getInputStream();
+                 OutputStream base64 = MimeUtility.encode(out, "base64")) {
+                IoUtil.copy(in, base64);
+            }
+        } catch (MessagingException e) {
+            out.discard();
+            throw new IOException("附件编码失败：" + fileName, e);
+        } catch (IOException | RuntimeException e) {
+            out.discard();
+            throw e;
+        }
+        SharedInputStream encoded = out.isInMemory()
+                ? new SharedByteArrayInputStream(out.toByteArray())
+                : new SharedFileInputStream(out.getFile());
+        return new EncodedAttachment(fileName, contentType, encoded, out.getFile(), out.getSize());
+    }
+
+    /**
+     * 追加头部参数，每个参数(段)单独一行
+     * 可打印ASCII短值直接加引号；其他按RFC 2231编码为 name*=UTF-8''%XX…，超过单段长度时拆为 name*0*=…;name*1*=…
+     */
+    private static void appendParameter(StringBuilder header, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.length() <= PARAMETER_SEGMENT_LENGTH && isQuotable(value)) {
+            header.append(";\r\n ").append(name).append("=\"").append(value).append('"');
+            return;
+        }
+        String encoded = "UTF-8''" + percentEncode(value);
+        if (encoded.length() <= PARAMETER_SEGMENT_LENGTH) {
+            header.append(";\r\n ").append(name).append("*=").append(encoded);
+            return;
+        }
+        int segment = 0;
+        int pos = 0;
+        while (pos < encoded.length()) {
+            int end = Math.min(pos + PARAMETER_SEGMENT_LENGTH, encoded.length());
+            // 不拆开%XX
+            if (end < encoded.length()) {
+                if (encoded.charAt(end - 1) == '%') {
+                    end -= 1;
+                } else if (encoded.charAt(end - 2) == '%') {
+                    end -= 2;
+                }
+            }
+            header.append(";\r\n ").append(name).append('*').append(segment++).append("*=").append(encoded, pos, end);
+            pos = end;
+        }
+    }
+
+    private static boolean isQuotable(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7E || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * RFC 2231 attribute-char以外的字节编码为%XX
+     */
+    private static String percentEncode(String value) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            int c = b & 0xFF;
+            if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || "!#$&+-.^_`|~".indexOf(c) >= 0) {
+                sb.append((char) c);
+            } else {
+                sb.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 新建附件部件，与其他部件共用编码结果
+     *
+     * @return 附件部件
+     */
+    public MimeBodyPart newBodyPart() throws MessagingException {
+        return new MimeBodyPart(encoded.newStream(0, -1));
+    }
+
+    /**
+     * 解码后的附件内容
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        try {
+            return newBodyPart().getInputStream();
+        } catch (MessagingException e) {
+            throw new IOException("读取附件失败：" + name, e);
+        }
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        throw new IOException("附件数据源只读");
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 释放编码结果，删除临时文件
+     */
+    @Override
+    public void close() {
+        if (encoded instanceof Closeable) {
+            IoUtil.close((Closeable) encoded);
+        }
+        if (tempFile != null) {
+            FileUtil.del(tempFile);
+        }
+    }
+
+    /**
+     * 先写内存，超过阈值后转写临时文件
+     */
+    private static class SpillOutputStream extends OutputStream {
+        private final int threshold;
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        @Getter
+        private File file;
+        private OutputStream fileOut;
+        @Getter
+        private long size;
+
+        SpillOutputStream(int threshold) {
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target(1).write(b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target(len).write(b, off, len);
+            size += len;
+        }
+
+        private OutputStream target(int len) throws IOException {
+            if (fileOut == null && size + len > threshold) {
+                file = File.createTempFile("mail-attachment-", ".b64");
+                fileOut = new BufferedOutputStream(new FileOutputStream(file));
+                memory.writeTo(fileOut);
+                memory = null;
+            }
+            return fileOut != null ? fileOut : memory;
+        }
+
+        boolean isInMemory() {
+            return fileOut == null;
+        }
+
+        byte[] toByteArray() {
+            return memory.toByteArray();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fileOut != null) {
+                fileOut.close();
+            }
+        }
+
+        void discard() {
+            IoUtil.close(this);
+            if (file != null) {
+                FileUtil.del(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.ggk911.springtest01.util.mail;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import javax.activation.DataSource;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+/**
+ * 待发送邮件
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-02 09:50
+ **/
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailMessage {
+    /**
+     * 收件地址
+     */
+    private String to;
+
+    /**
+     * 标题
+     */
+    private String subject;
+
+    /**
+     * 内容
+     */
+    private String content;
+
+    /**
+     * 是否html
+     */
+    private boolean html;
+
+    /**
+     * 附件，为null时不带附件；发送时才读取，见{@link AttachmentSources}
+     * 同一附件发给多人时可使用{@link EncodedAttachment}，只编码一次
+     */
+    private DataSource attachment;
+
+    /**
+     * 附件文件全名
+     */
+    private String attachmentName;
+
+    /**
+     * 构建MimeMessage
+     *
+     * @param mailSender 发送器
+     * @param from       发件人
+     * @return MimeMessage
+     */
+    public MimeMessage toMimeMessage(JavaMailSender mailSender, String from) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, attachment != null);
+        helper.setFrom(from);
+        helper.setSubject(subject);
+        helper.setTo(to);
+        helper.setText(content, html);
+        if (attachment instanceof EncodedAttachment) {
+            // 共用编码结果，文件名以编码时为准
+            helper.getRootMimeMultipart().addBodyPart(((EncodedAttachment) attachment).newBodyPart());
+        } else if (attachment != null) {
+            helper.addAttachment(attachmentName, attachment);
+        }
+        return mimeMessage;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ggk911.springtest01.util.mail;
+
+import lombok.Getter;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 使用SMTP连接池发送的JavaMailSender
+ * 其余行为(创建MimeMessage、默认编码等)与JavaMailSenderImpl一致
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-01 11:05
+ **/
+public class PooledJavaMailSender extends JavaMailSenderImpl {
+
+    @Getter
+    private volatile SmtpTransportPool transportPool;
+
+    /**
+     * 按当前主机、端口、账号创建连接池，属性设置完成后调用
+     *
+     * @param maxConnections          最大连接数
+     * @param maxIdleMillis           最大空闲时间(毫秒)
+     * @param validateAfterIdleMillis 空闲超过此时间借出前校验(毫秒)
+     * @param borrowTimeoutMillis     等待可用连接的最长时间(毫秒)
+     */
+    public void initPool(int maxConnections, long maxIdleMillis, long validateAfterIdleMillis, long borrowTimeoutMillis) {
+        SmtpTransportPool old = transportPool;
+        transportPool = new SmtpTransportPool(getSession(), getProtocol(), getHost(), getPort(), getUsername(), getPassword(),
+                maxConnections, maxIdleMillis, validateAfterIdleMillis, borrowTimeoutMillis);
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    /**
+     * 关闭连接池
+     */
+    public void destroy() {
+        if (transportPool != null) {
+            transportPool.close();
+        }
+    }
+
+    /**
+     * 占用一个连接连续发送多封邮件，邮件需先经{@link #prepare(MimeMessage)}
+     *
+     * @param callback 发送逻辑
+     */
+    public void sendBatch(SmtpTransportPool.BatchCallback callback) throws MessagingException {
+        SmtpTransportPool pool = transportPool;
+        if (pool == null) {
+            throw new MessagingException("SMTP连接池未初始化");
+        }
+        pool.sendBatch(callback);
+    }
+
+    /**
+     * 发送前处理：补充发送时间并生成邮件头
+     *
+     * @param mimeMessage 邮件
+     */
+    public void prepare(MimeMessage mimeMessage) throws MessagingException {
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            // 保留指定的Message-ID
+            mimeMessage.setHeader("Message-ID", messageId);
+        }
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        SmtpTransportPool pool = transportPool;
+        if (pool == null) {
+            super.doSend(mimeMessages, originalMessages);
+            return;
+        }
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        for (int i = 0; i < mimeMessages.length; i++) {
+            MimeMessage mimeMessage = mimeMessages[i];
+            try {
+                prepare(mimeMessage);
+                pool.send(mimeMessage);
+            } catch (MessagingException ex) {
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessage;
+                failedMessages.put(original, ex);
+            }
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+}
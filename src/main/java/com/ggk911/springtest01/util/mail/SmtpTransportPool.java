@@ -0,0 +1,340 @@
+package com.ggk911.springtest01.util.mail;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SMTP连接池
+ * 保持一定数量已认证的Transport连接，发送时借出、发送后归还，避免每封邮件都重新握手(TCP/TLS/AUTH)
+ * 空闲连接后进先出，超过最大空闲时间的关闭；空闲超过校验阈值的借出前发NOOP校验
+ * 批量发送时一个会话占用一个连接连续发送，见{@link #sendBatch(BatchCallback)}
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-01 10:20
+ **/
+@Slf4j
+public class SmtpTransportPool {
+
+    private final Session session;
+    private final String protocol;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+
+    /**
+     * 最大连接数
+     */
+    @Getter
+    private final int maxConnections;
+
+    /**
+     * 最大空闲时间(毫秒)，超过则关闭
+     */
+    private final long maxIdleMillis;
+
+    /**
+     * 空闲超过此时间(毫秒)的连接借出前校验
+     */
+    private final long validateAfterIdleMillis;
+
+    /**
+     * 等待可用连接的最长时间(毫秒)
+     */
+    private final long borrowTimeoutMillis;
+
+    private final Semaphore permits;
+
+    /**
+     * 空闲连接，头部为最近归还
+     */
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicLong createdCount = new AtomicLong();
+
+    private final AtomicLong sendCount = new AtomicLong();
+
+    private final AtomicLong failureCount = new AtomicLong();
+
+    private final AtomicLong sendNanos = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public SmtpTransportPool(Session session, String protocol, String host, int port, String username, String password,
+                             int maxConnections, long maxIdleMillis, long validateAfterIdleMillis, long borrowTimeoutMillis) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("SMTP最大连接数必须大于0");
+        }
+        this.session = session;
+        this.protocol = protocol;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.maxConnections = maxConnections;
+        this.maxIdleMillis = maxIdleMillis;
+        this.validateAfterIdleMillis = validateAfterIdleMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * 发送邮件，调用方需已saveChanges
+     * 复用的连接已被服务端断开时，新建连接重试一次
+     *
+     * @param message 邮件
+     */
+    public void send(MimeMessage message) throws MessagingException {
+        sendBatch(batch -> batch.send(message));
+    }
+
+    /**
+     * 占用一个连接连续发送多封邮件，期间不归还、不重连(连接断开时除外)
+     *
+     * @param callback 发送逻辑
+     */
+    public void sendBatch(BatchCallback callback) throws MessagingException {
+        acquire();
+        BatchSession batch = new BatchSession();
+        try {
+            callback.execute(batch);
+        } finally {
+            batch.finish();
+            permits.release();
+        }
+    }
+
+    /**
+     * 批量发送逻辑
+     */
+    @FunctionalInterface
+    public interface BatchCallback {
+        void execute(BatchSession batch) throws MessagingException;
+    }
+
+    /**
+     * 持有一个连接的发送会话，非线程安全
+     */
+    public class BatchSession {
+        private PooledTransport current;
+
+        private BatchSession() {
+        }
+
+        /**
+         * 在当前连接上发送一封邮件，调用方需已saveChanges
+         *
+         * @param message 邮件
+         */
+        public void send(MimeMessage message) throws MessagingException {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                doSend(message);
+                success = true;
+            } finally {
+                sendNanos.addAndGet(System.nanoTime() - start);
+                sendCount.incrementAndGet();
+                if (!success) {
+                    failureCount.incrementAndGet();
+                }
+            }
+        }
+
+        private void doSend(MimeMessage message) throws MessagingException {
+            Address[] recipients = message.getAllRecipients();
+            if (current == null) {
+                current = borrow();
+            }
+            try {
+                current.getTransport().sendMessage(message, recipients);
+                current.reused = true;
+                return;
+            } catch (MessagingException e) {
+                if (current.getTransport().isConnected()) {
+                    // 邮件本身被拒绝，连接可继续使用
+                    throw e;
+                }
+                PooledTransport broken = current;
+                current = null;
+                discard(broken);
+                if (!broken.isReused()) {
+                    throw e;
+                }
+                log.debug("复用的SMTP连接已断开，重新连接：{}", e.getMessage());
+            }
+            current = create();
+            try {
+                current.getTransport().sendMessage(message, recipients);
+                current.reused = true;
+            } catch (MessagingException e) {
+                if (!current.getTransport().isConnected()) {
+                    discard(current);
+                    current = null;
+                }
+                throw e;
+            }
+        }
+
+        private void finish() {
+            if (current != null) {
+                release(current);
+                current = null;
+            }
+        }
+    }
+
+    private void acquire() throws MessagingException {
+        if (closed) {
+            throw new MessagingException("SMTP连接池已关闭");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("等待SMTP连接超时(" + borrowTimeoutMillis + "ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("等待SMTP连接被中断", e);
+        }
+    }
+
+    /**
+     * 借出连接，调用方已持有许可
+     */
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport transport;
+        while ((transport = idle.pollFirst()) != null) {
+            long idleMillis = System.currentTimeMillis() - transport.getLastUsed();
+            if (idleMillis > maxIdleMillis || idleMillis > validateAfterIdleMillis && !transport.getTransport().isConnected()) {
+                close(transport);
+                continue;
+            }
+            active.incrementAndGet();
+            return transport;
+        }
+        return create();
+    }
+
+    private PooledTransport create() throws MessagingException {
+        Transport transport = session.getTransport(protocol);
+        transport.connect(host, port, username, password);
+        createdCount.incrementAndGet();
+        active.incrementAndGet();
+        return new PooledTransport(transport);
+    }
+
+    private void release(PooledTransport transport) {
+        active.decrementAndGet();
+        if (closed) {
+            close(transport);
+            return;
+        }
+        transport.lastUsed = System.currentTimeMillis();
+        idle.offerFirst(transport);
+        evictExpired();
+    }
+
+    private void discard(PooledTransport transport) {
+        active.decrementAndGet();
+        close(transport);
+    }
+
+    /**
+     * 关闭尾部超过最大空闲时间的连接
+     */
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        PooledTransport last;
+        while ((last = idle.peekLast()) != null && now - last.getLastUsed() > maxIdleMillis) {
+            if (idle.removeLastOccurrence(last)) {
+                close(last);
+            }
+        }
+    }
+
+    private void close(PooledTransport transport) {
+        try {
+            transport.getTransport().close();
+        } catch (MessagingException e) {
+            log.debug("关闭SMTP连接失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭连接池及所有空闲连接
+     */
+    public void close() {
+        closed = true;
+        PooledTransport transport;
+        while ((transport = idle.pollFirst()) != null) {
+            close(transport);
+        }
+    }
+
+    /**
+     * 借出中的连接数
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * 空闲连接数
+     */
+    public int getIdle() {
+        return idle.size();
+    }
+
+    /**
+     * 新建连接总数
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * 发送总数(含失败)
+     */
+    public long getSendCount() {
+        return sendCount.get();
+    }
+
+    /**
+     * 发送失败总数
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * 发送总耗时(毫秒，含等待连接)
+     */
+    public double getSendMillis() {
+        return sendNanos.get() / 1_000_000.0;
+    }
+
+    @Getter
+    private static class PooledTransport {
+        private final Transport transport;
+        private volatile long lastUsed;
+        private volatile boolean reused;
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.ggk911.springtest01.util.ImageUtil;
+import com.ggk911.springtest01.util.MeterUtil;
 import com.itextpdf.text.BaseColor;
 import com.itextpdf.text.Chunk;
 import com.itextpdf.text.DocumentException;
@@ -143,12 +144,20 @@ public class PdfUtil {
      * @return 填充后的pdf
      */
     public static byte[] pdfFill(byte[] pdfByte, Map<String, Object> fillData, byte[] picByte) {
+        MeterUtil.bytes("pdf.bytes", "fill", "in", pdfByte.length);
+        byte[] filled = MeterUtil.time("pdf.operation", "fill", () -> fill(pdfByte, fillData, picByte));
+        MeterUtil.bytes("pdf.bytes", "fill", "out", filled.length);
+        return filled;
+    }
+
+    private static byte[] fill(byte[] pdfByte, Map<String, Object> fillData, byte[] picByte) {
         PdfReader reader;
         try {
             reader = new PdfReader(new PdfReader(pdfByte));
         } catch (IOException e) {
             throw new RuntimeException("读取文件数据异常");
         }
+        MeterUtil.summary("pdf.pages", "fill", reader.getNumberOfPages());
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         PdfStamper stamper;
         try {
@@ -226,6 +235,11 @@ public class PdfUtil {
      * @param templateId            模板ID
      */
     public static void getPdfDomain(byte[] bytes, List<PdfParameterEntity> templateParameterList, String templateId) {
+        MeterUtil.bytes("pdf.bytes", "domain", "in", bytes.length);
+        MeterUtil.run("pdf.operation", "domain", () -> domain(bytes, templateParameterList, templateId));
+    }
+
+    private static void domain(byte[] bytes, List<PdfParameterEntity> templateParameterList, String templateId) {
         PdfReader reader;
         PdfStamper stamper;
         try {
@@ -239,6 +253,7 @@ public class PdfUtil {
         } catch (Exception e) {
             throw new RuntimeException("参数上传模板-解析文本域-pdf读取异常");
         }
+        MeterUtil.summary("pdf.pages", "domain", reader.getNumberOfPages());
         AcroFields form = stamper.getAcroFields();
         if (ObjectUtil.isNull(form)) {
             throw new RuntimeException("参数上传模板-解析文本域-请根据模板要求上传数据");
@@ -465,7 +480,10 @@ public class PdfUtil {
             }
         }
         Phrase phrase = fs.process(value);
-        fontSize = judgeFontSize(fontSize, form, key, phrase);
+        float fitFontSize = judgeFontSize(fontSize, form, key, phrase);
+        // 每次缩小1号，差值即缩小次数
+        MeterUtil.summary("pdf.font.shrink.iterations", "fill", fontSize - fitFontSize);
+        fontSize = fitFontSize;
         form.setFieldProperty(key, "textsize", fontSize, null);
         // 域类型
         int fieldType = form.getFieldType(key);
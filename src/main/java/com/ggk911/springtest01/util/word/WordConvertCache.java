@@ -0,0 +1,200 @@
+package com.ggk911.springtest01.util.word;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * doc转docx结果缓存
+ * 以模板内容SHA-256为key，内存LRU + 可选磁盘两级，同一版本模板只转换一次
+ * 返回的数组为缓存共享数据，调用方不可修改
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-16 14:20
+ **/
+@Slf4j
+public class WordConvertCache {
+
+    /**
+     * 磁盘缓存文件后缀
+     */
+    private static final String DISK_SUFFIX = ".docx";
+
+    /**
+     * 内存缓存
+     */
+    private static volatile LRUCache<String, byte[]> memoryCache = CacheUtil.newLRUCache(64);
+
+    /**
+     * 磁盘缓存目录，为null不启用
+     */
+    private static volatile File diskDir;
+
+    /**
+     * 正在转换中的模板，相同模板并发转换时只转换一次
+     */
+    private static final ConcurrentMap<String, CompletableFuture<byte[]>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private static final AtomicLong MEMORY_HITS = new AtomicLong();
+
+    /**
+     * 等待其他线程转换同一模板的次数
+     */
+    private static final AtomicLong COALESCED = new AtomicLong();
+
+    private static final AtomicLong DISK_HITS = new AtomicLong();
+
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    /**
+     * 配置缓存
+     *
+     * @param memoryCapacity 内存缓存最大模板数
+     * @param diskDirPath    磁盘缓存目录，为空不启用
+     */
+    public static void configure(int memoryCapacity, String diskDirPath) {
+        memoryCache = CacheUtil.newLRUCache(memoryCapacity);
+        if (StrUtil.isBlank(diskDirPath)) {
+            diskDir = null;
+        } else {
+            diskDir = FileUtil.mkdir(diskDirPath);
+        }
+        log.info("doc转docx缓存配置，内存容量：{}，磁盘目录：{}", memoryCapacity, diskDir);
+    }
+
+    /**
+     * 获取转换结果，未命中时调用转换方法并缓存
+     *
+     * @param doc       老版本word
+     * @param converter 转换方法，返回null表示转换失败（不缓存）
+     * @return 新版本word
+     */
+    public static byte[] get(byte[] doc, Function<byte[], byte[]> converter) {
+        String key = DigestUtil.sha256Hex(doc);
+        byte[] docx = memoryCache.get(key);
+        if (docx != null) {
+            MEMORY_HITS.incrementAndGet();
+            return docx;
+        }
+        docx = readDisk(key);
+        if (docx != null) {
+            DISK_HITS.incrementAndGet();
+            memoryCache.put(key, docx);
+            return docx;
+        }
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> converting = IN_FLIGHT.putIfAbsent(key, mine);
+        if (converting != null) {
+            // 其他线程正在转换同一模板
+            COALESCED.incrementAndGet();
+            return join(converting);
+        }
+        MISSES.incrementAndGet();
+        try {
+            docx = converter.apply(doc);
+            if (docx != null) {
+                memoryCache.put(key, docx);
+                writeDisk(key, docx);
+            }
+            mine.complete(docx);
+            return docx;
+        } catch (Throwable e) {
+            // Aspose可能抛出未声明的受检异常，必须让等待方同样结束，否则会一直阻塞
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            IN_FLIGHT.remove(key, mine);
+        }
+    }
+
+    /**
+     * 等待其他线程的转换结果，转换异常原样抛出(如BulkheadFullException)，不包装为CompletionException
+     */
+    private static byte[] join(CompletableFuture<byte[]> converting) {
+        try {
+            return converting.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 清空内存缓存
+     */
+    public static void clear() {
+        memoryCache.clear();
+    }
+
+    public static long getMemoryHits() {
+        return MEMORY_HITS.get();
+    }
+
+    public static long getCoalesced() {
+        return COALESCED.get();
+    }
+
+    public static long getDiskHits() {
+        return DISK_HITS.get();
+    }
+
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    public static int getMemorySize() {
+        return memoryCache.size();
+    }
+
+    private static byte[] readDisk(String key) {
+        File dir = diskDir;
+        if (dir == null) {
+            return null;
+        }
+        File file = new File(dir, key + DISK_SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return FileUtil.readBytes(file);
+        } catch (Exception e) {
+            log.warn("读取doc转docx磁盘缓存失败：{}", file, e);
+            return null;
+        }
+    }
+
+    private static void writeDisk(String key, byte[] docx) {
+        File dir = diskDir;
+        if (dir == null) {
+            return;
+        }
+        File target = new File(dir, key + DISK_SUFFIX);
+        try {
+            // 先写临时文件再改名，避免并发读到写了一半的文件
+            File temp = File.createTempFile(key, ".tmp", dir);
+            FileUtil.writeBytes(docx, temp);
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("写入doc转docx磁盘缓存失败：{}", target, e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.ggk911.springtest01.util.word;
+
+import cn.hutool.core.date.StopWatch;
+import com.aspose.words.Document;
+import com.ggk911.springtest01.util.MinioUtil;
+import com.ggk911.springtest01.util.bulkhead.BulkheadRegistry;
+import com.ggk911.springtest01.util.bulkhead.BulkheadType;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WORD模板填充直出PDF
+ * 填充后的docx直接在同一缓冲区上交给Aspose渲染，不再经过byte[]拷贝和二次调用
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-15 10:12
+ **/
+@Slf4j
+public class WordPdfPipeline {
+
+    /**
+     * 阶段：打开模板(含doc转docx)
+     */
+    public static final String STAGE_OPEN = "open";
+
+    /**
+     * 阶段：填充变量并写出docx
+     */
+    public static final String STAGE_FILL = "fill";
+
+    /**
+     * 阶段：Aspose加载docx
+     */
+    public static final String STAGE_LOAD = "load";
+
+    /**
+     * 阶段：渲染PDF
+     */
+    public static final String STAGE_RENDER = "render";
+
+    /**
+     * 阶段：上传MinIO
+     */
+    public static final String STAGE_UPLOAD = "upload";
+
+    @Getter
+    public static class Result {
+        /**
+         * pdf文件，未授权时为null
+         */
+        private final byte[] pdfBytes;
+
+        /**
+         * MinIO文件路径，未上传时为null
+         */
+        private final String objectName;
+
+        /**
+         * 各阶段耗时(毫秒)，按执行顺序
+         */
+        private final Map<String, Long> stageMillis;
+
+        /**
+         * 总耗时(毫秒)
+         */
+        private final long totalMillis;
+
+        private Result(byte[] pdfBytes, String objectName, StopWatch stopWatch) {
+            this.pdfBytes = pdfBytes;
+            this.objectName = objectName;
+            Map<String, Long> stages = new LinkedHashMap<>();
+            for (StopWatch.TaskInfo taskInfo : stopWatch.getTaskInfo()) {
+                stages.put(taskInfo.getTaskName(), taskInfo.getTimeMillis());
+            }
+            this.stageMillis = Collections.unmodifiableMap(stages);
+            this.totalMillis = stopWatch.getTotalTimeMillis();
+        }
+
+        /**
+         * 转为Server-Timing响应头格式
+         *
+         * @return 如 open;dur=3, fill;dur=12
+         */
+        public String toServerTiming() {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, Long> entry : stageMillis.entrySet()) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(entry.getKey()).append(";dur=").append(entry.getValue());
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 填充WORD模板并直接渲染为PDF
+     *
+     * @param wordBytes       word模板(doc/docx)
+     * @param paramMap        key与word文件form域中{}的参数名一致，value为替换值
+     * @param detailTableData word模板中明细表格的参数
+     * @return 结果
+     */
+    public static Result fillToPdf(byte[] wordBytes, Map<String, Object> paramMap, Map<String, List<Map<String, String>>> detailTableData) {
+        return fillToPdf(wordBytes, paramMap, detailTableData, null, null);
+    }
+
+    /**
+     * 填充WORD模板并直接渲染为PDF，可选上传到MinIO
+     *
+     * @param wordBytes       word模板(doc/docx)
+     * @param paramMap        key与word文件form域中{}的参数名一致，value为替换值
+     * @param detailTableData word模板中明细表格的参数
+     * @param minioUtil       MinIO工具，为null时不上传
+     * @param fileName        上传文件名（取扩展名）
+     * @return 结果
+     */
+    @SneakyThrows
+    public static Result fillToPdf(byte[] wordBytes, Map<String, Object> paramMap, Map<String, List<Map<String, String>>> detailTableData,
+                                   MinioUtil minioUtil, String fileName) {
+        StopWatch stopWatch = new StopWatch("word-pdf");
+        // 验证License 若不验证则转化出的pdf文档会有水印产生
+        if (WordUtil.isNotAuthEdition()) {
+            return new Result(null, null, stopWatch);
+        }
+
+        stopWatch.start(STAGE_OPEN);
+        XWPFDocument docx = WordTemplateUtil.openDocx(wordBytes);
+        stopWatch.stop();
+        if (docx == null) {
+            return new Result(null, null, stopWatch);
+        }
+
+        stopWatch.start(STAGE_FILL);
+        // 预估容量，避免扩容拷贝
+        DirectByteArrayOutputStream docxBuffer = new DirectByteArrayOutputStream(wordBytes.length + (wordBytes.length >> 1));
+        WordTemplateUtil.setDocxParam(docx, paramMap, detailTableData, docxBuffer);
+        stopWatch.stop();
+
+        ByteArrayOutputStream pdfBuffer = new ByteArrayOutputStream(docxBuffer.size());
+        BulkheadRegistry.get(BulkheadType.ASPOSE).call(() -> {
+            stopWatch.start(STAGE_LOAD);
+            Document document = new Document(docxBuffer.toInputStream());
+            stopWatch.stop();
+
+            stopWatch.start(STAGE_RENDER);
+            WordUtil.docToPdf(document, pdfBuffer);
+            stopWatch.stop();
+            return null;
+        });
+        byte[] pdfBytes = pdfBuffer.toByteArray();
+
+        String objectName = null;
+        if (minioUtil != null) {
+            stopWatch.start(STAGE_UPLOAD);
+            objectName = minioUtil.upload(pdfBytes, fileName, "application/pdf");
+            stopWatch.stop();
+        }
+        Result result = new Result(pdfBytes, objectName, stopWatch);
+        log.info("WORD填充转PDF完成，总耗时{}ms，各阶段：{}", result.getTotalMillis(), result.getStageMillis());
+        return result;
+    }
+
+    /**
+     * 可直接以内部缓冲区读出的字节输出流
+     */
+    private static class DirectByteArrayOutputStream extends ByteArrayOutputStream {
+
+        DirectByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        ByteArrayInputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.util.CharUtil;
 import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.StrUtil;
+import com.ggk911.springtest01.util.MeterUtil;
 import lombok.SneakyThrows;
 import org.apache.poi.hwpf.HWPFDocument;
 import org.apache.poi.hwpf.extractor.WordExtractor;
@@ -23,8 +24,10 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,6 +46,16 @@ public class WordTemplateUtil {
 
     public static final String WORD_MAGIC = "D0CF11E0A1B11AE10000";
 
+    /**
+     * 变量正则
+     */
+    private static final Pattern VAR_PATTERN = Pattern.compile("\\$\\{(.+?)\\}", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 最内层变量正则(变量名中不含"${"，与getFirstParm取值一致)
+     */
+    private static final Pattern INNER_VAR_PATTERN = Pattern.compile("\\$\\{((?:(?!\\$\\{)[^}\\r\\n])*)\\}");
+
     /**
      * 获取word文档的所有变量
      *
@@ -52,6 +65,11 @@ public class WordTemplateUtil {
      */
     @SneakyThrows
     public static void getWordAllVars(byte[] wordBytes, List<String> varList, List<Map<String, List<String>>> detailTableVarList) {
+        MeterUtil.bytes("word.bytes", "vars", "in", wordBytes.length);
+        MeterUtil.run("word.operation", "vars", () -> allVars(wordBytes, varList, detailTableVarList));
+    }
+
+    private static void allVars(byte[] wordBytes, List<String> varList, List<Map<String, List<String>>> detailTableVarList) throws IOException {
         // 版本
         byte[] fileByteBefore28 = new byte[28];
         System.arraycopy(wordBytes, 0, fileByteBefore28, 0, fileByteBefore28.length);
@@ -75,6 +93,13 @@ public class WordTemplateUtil {
      */
     @SneakyThrows
     public static byte[] setDocxParam(byte[] wordBytes, Map<String, Object> paramMap, Map<String, List<Map<String, String>>> detailTableData) {
+        MeterUtil.bytes("word.bytes", "fill", "in", wordBytes.length);
+        byte[] filled = MeterUtil.time("word.operation", "fill", () -> fill(wordBytes, paramMap, detailTableData));
+        MeterUtil.bytes("word.bytes", "fill", "out", filled.length);
+        return filled;
+    }
+
+    private static byte[] fill(byte[] wordBytes, Map<String, Object> paramMap, Map<String, List<Map<String, String>>> detailTableData) throws IOException {
         // 版本
         byte[] fileByteBefore28 = new byte[28];
         System.arraycopy(wordBytes, 0, fileByteBefore28, 0, fileByteBefore28.length);
@@ -104,16 +129,60 @@ public class WordTemplateUtil {
      */
     @SneakyThrows
     public static byte[] setDocxParam(XWPFDocument doc, Map<String, Object> paramMap, Map<String, List<Map<String, String>>> detailTableData) {
-        // 替换段落里面的变量
-        replaceVarInStage(doc, paramMap);
-        // 替换表格里面的变量
-        replaceVarInTable(doc, paramMap, detailTableData);
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        doc.write(bos);
-        doc.close();
+        setDocxParam(doc, paramMap, detailTableData, bos);
         return bos.toByteArray();
     }
 
+    /**
+     * 填充Word文件并写入输出流(新版本word：docx)
+     *
+     * @param doc             word
+     * @param paramMap        key与word文件form域中{}的参数名一致，value为替换值
+     * @param detailTableData word模板中普通表格的参数（不带{}的）
+     * @param out             填充后文件输出流
+     */
+    @SneakyThrows
+    public static void setDocxParam(XWPFDocument doc, Map<String, Object> paramMap, Map<String, List<Map<String, String>>> detailTableData, OutputStream out) {
+        MeterUtil.run("word.operation", "render.docx", () -> {
+            // 替换段落里面的变量
+            replaceVarInStage(doc, paramMap);
+            // 替换表格里面的变量
+            replaceVarInTable(doc, paramMap, detailTableData);
+            doc.write(out);
+            doc.close();
+        });
+    }
+
+    /**
+     * 打开Word模板为docx文档，老版本doc会先转换为docx
+     *
+     * @param wordBytes word文件
+     * @return docx文档，老版本doc转换失败时返回null
+     */
+    @SneakyThrows
+    public static XWPFDocument openDocx(byte[] wordBytes) {
+        if (isDoc(wordBytes)) {
+            // (老版本word：doc)
+            byte[] toDocx = WordUtil.docToDocx(wordBytes);
+            return null == toDocx ? null : new XWPFDocument(IoUtil.toStream(toDocx));
+        }
+        // (新版本word：docx)
+        return new XWPFDocument(IoUtil.toStream(wordBytes));
+    }
+
+    /**
+     * 根据魔数判断是否为老版本word(doc)
+     *
+     * @param wordBytes word文件
+     * @return 是否doc
+     */
+    public static boolean isDoc(byte[] wordBytes) {
+        byte[] fileByteBefore28 = new byte[28];
+        System.arraycopy(wordBytes, 0, fileByteBefore28, 0, fileByteBefore28.length);
+        return HexUtil.encodeHexStr(fileByteBefore28, false).startsWith(WORD_MAGIC);
+    }
+
     /**
      * 填充Word文件(老版本word：doc)
      *
@@ -123,10 +192,14 @@ public class WordTemplateUtil {
      */
     @SneakyThrows
     public static byte[] setDocxParam(HWPFDocument doc, Map<String, Object> paramMap) {
+        return MeterUtil.time("word.operation", "render.doc", () -> render(doc, paramMap));
+    }
+
+    private static byte[] render(HWPFDocument doc, Map<String, Object> paramMap) throws IOException {
         Range range = doc.getRange();
-        // 替换内容
-        for (Map.Entry<String, Object> entry : paramMap.entrySet()) {
-            range.replaceText(START + entry.getKey() + END, entry.getValue().toString());
+        // 一次遍历替换内容，倒序处理段落，替换后前面段落的偏移不受影响
+        for (int i = range.numParagraphs() - 1; i >= 0; i--) {
+            replaceVarInParagraph(range.getParagraph(i), paramMap);
         }
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
         doc.write(byteArrayOutputStream);
@@ -157,19 +230,50 @@ public class WordTemplateUtil {
         // 读取2003版本word中的文本
         WordExtractor we = new WordExtractor(doc);
         String text = we.getText();
-        String tempParam;
-        // 匹配是否存在变量
-        while (matcher(text).find()) {
-            // 获取第一个参数
-            tempParam = getFirstParm(text);
-            // 删除第一个参数
-            text = text.substring(text.indexOf(tempParam) + tempParam.length());
-            // 添加参数到参数列表中
-            addParam(varList, tempParam);
+        // 一次扫描，按出现顺序去重
+        Set<String> vars = new LinkedHashSet<>(varList);
+        Matcher matcher = INNER_VAR_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String param = matcher.group(1).trim();
+            if (!param.isEmpty()) {
+                vars.add(param);
+            }
         }
+        varList.clear();
+        varList.addAll(vars);
         doc.close();
     }
 
+    /**
+     * 替换段落中的变量(老版本word：doc)
+     * 倒序替换，保证同段落中前面变量的偏移不变
+     *
+     * @param paragraph 段落
+     * @param paramMap  填充参数
+     */
+    private static void replaceVarInParagraph(Range paragraph, Map<String, Object> paramMap) {
+        String text = paragraph.text();
+        if (!text.contains(START)) {
+            return;
+        }
+        List<int[]> positions = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        Matcher matcher = INNER_VAR_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String key = matcher.group(1);
+            if (!paramMap.containsKey(key)) {
+                continue;
+            }
+            Object value = paramMap.get(key);
+            positions.add(new int[]{matcher.start(), matcher.end()});
+            values.add(value == null ? "" : value.toString());
+        }
+        for (int i = positions.size() - 1; i >= 0; i--) {
+            int[] position = positions.get(i);
+            paragraph.replaceText(text.substring(position[0], position[1]), values.get(i), position[0]);
+        }
+    }
+
     /**
      * 获取word整个文档里【段落的变量】
      */
@@ -564,9 +668,7 @@ public class WordTemplateUtil {
      * 正则匹配字符串
      */
     private static Matcher matcher(String str) {
-        Pattern pattern;
-        pattern = Pattern.compile("\\$\\{(.+?)\\}", Pattern.CASE_INSENSITIVE);
-        return pattern.matcher(str);
+        return VAR_PATTERN.matcher(str);
     }
 
     /**
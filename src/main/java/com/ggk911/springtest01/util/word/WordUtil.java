@@ -8,11 +8,15 @@ import com.aspose.words.DocumentBuilder;
 import com.aspose.words.HeaderFooterType;
 import com.aspose.words.License;
 import com.aspose.words.SaveFormat;
+import com.ggk911.springtest01.util.bulkhead.BulkheadFullException;
+import com.ggk911.springtest01.util.bulkhead.BulkheadRegistry;
+import com.ggk911.springtest01.util.bulkhead.BulkheadType;
 import lombok.SneakyThrows;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * WORD文件工具类
@@ -42,20 +46,31 @@ public class WordUtil {
             if (isNotAuthEdition()) {
                 return null;
             }
-            // (老版本word：doc)
-            Document document = new Document(IoUtil.toStream(doc));
-            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                document.save(outputStream, SaveFormat.DOCX);
-                return outputStream.toByteArray();
-            } catch (Exception e) {
-                return null;
-            }
+            // (老版本word：doc) 同一版本模板只转换一次
+            return WordConvertCache.get(doc, d -> BulkheadRegistry.get(BulkheadType.ASPOSE).execute(() -> convertDocToDocx(d)));
         } else {
             // (新版本word：docx)
             return doc;
         }
     }
 
+    /**
+     * 老版本doc转docx(实际转换，不走缓存)
+     *
+     * @param doc 老版本word
+     * @return 新版本word，转换失败返回null
+     */
+    @SneakyThrows
+    private static byte[] convertDocToDocx(byte[] doc) {
+        Document document = new Document(IoUtil.toStream(doc));
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            document.save(outputStream, SaveFormat.DOCX);
+            return outputStream.toByteArray();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * 不是正版（去除水印）
      *
@@ -82,39 +97,63 @@ public class WordUtil {
      * @return pdf文件
      */
     public static byte[] docToPdf(byte[] docBytes) throws Exception {
+        return docToPdf(new ByteArrayInputStream(docBytes));
+    }
+
+    /**
+     * Word 转 PDF
+     *
+     * @param docStream word文件流
+     * @return pdf文件
+     */
+    public static byte[] docToPdf(InputStream docStream) throws Exception {
         // 去除水印
         // 验证License 若不验证则转化出的pdf文档会有水印产生
         if (isNotAuthEdition()) {
             return null;
         }
         try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-            Document doc = new Document(new ByteArrayInputStream(docBytes));
-            DocumentBuilder builder = new DocumentBuilder(doc);
-            // 文档主体内容设置段后和行距
-            builder.moveToDocumentStart();
-            // 单倍行距 = 12 ， 1.5 倍 =
-            builder.getParagraphFormat().setLineSpacing(12);
-            // 18
-            // 段后
-            builder.getParagraphFormat().setSpaceAfter(0);
-            // 页眉设置段后和行距
-            builder.moveToHeaderFooter(HeaderFooterType.HEADER_PRIMARY);
-            builder.getParagraphFormat().setLineSpacing(12);
-            builder.getParagraphFormat().setSpaceAfter(0);
-            // 页脚设置段后和行距
-            builder.moveToHeaderFooter(HeaderFooterType.FOOTER_PRIMARY);
-            builder.getParagraphFormat().setLineSpacing(12);
-            builder.getParagraphFormat().setSpaceAfter(0);
-            // 表格设置段后和行距
-            // builder.moveToCell(0,0,0,0);
-            // builder.getParagraphFormat().setLineSpacing(12);
-            // builder.getParagraphFormat().setSpaceAfter(0);
-            // 全面支持DOC, DOCX, OOXML, RTF HTML, OpenDocument, PDF
-            doc.save(bos, SaveFormat.PDF);
+            BulkheadRegistry.get(BulkheadType.ASPOSE).call(() -> {
+                docToPdf(new Document(docStream), bos);
+                return null;
+            });
             return bos.toByteArray();
+        } catch (BulkheadFullException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw e;
         }
     }
+
+    /**
+     * Word 转 PDF（不校验License、不经过舱壁，调用方需提前处理）
+     *
+     * @param doc word文档
+     * @param out pdf输出流
+     */
+    public static void docToPdf(Document doc, OutputStream out) throws Exception {
+        DocumentBuilder builder = new DocumentBuilder(doc);
+        // 文档主体内容设置段后和行距
+        builder.moveToDocumentStart();
+        // 单倍行距 = 12 ， 1.5 倍 =
+        builder.getParagraphFormat().setLineSpacing(12);
+        // 18
+        // 段后
+        builder.getParagraphFormat().setSpaceAfter(0);
+        // 页眉设置段后和行距
+        builder.moveToHeaderFooter(HeaderFooterType.HEADER_PRIMARY);
+        builder.getParagraphFormat().setLineSpacing(12);
+        builder.getParagraphFormat().setSpaceAfter(0);
+        // 页脚设置段后和行距
+        builder.moveToHeaderFooter(HeaderFooterType.FOOTER_PRIMARY);
+        builder.getParagraphFormat().setLineSpacing(12);
+        builder.getParagraphFormat().setSpaceAfter(0);
+        // 表格设置段后和行距
+        // builder.moveToCell(0,0,0,0);
+        // builder.getParagraphFormat().setLineSpacing(12);
+        // builder.getParagraphFormat().setSpaceAfter(0);
+        // 全面支持DOC, DOCX, OOXML, RTF HTML, OpenDocument, PDF
+        doc.save(out, SaveFormat.PDF);
+    }
 }
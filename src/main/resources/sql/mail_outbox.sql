@@ -0,0 +1,22 @@
+-- 邮件发件箱(MySQL 8，SKIP LOCKED需8.0+)
+CREATE TABLE IF NOT EXISTS `mail_outbox`
+(
+    `id`              BIGINT        NOT NULL AUTO_INCREMENT,
+    `to_address`      VARCHAR(1000) NOT NULL COMMENT '收件地址',
+    `subject`         VARCHAR(500)           DEFAULT NULL COMMENT '标题',
+    `content`         LONGTEXT COMMENT '内容',
+    `html`            BIT(1)        NOT NULL COMMENT '是否html',
+    `attachment_name` VARCHAR(255)           DEFAULT NULL COMMENT '附件文件全名',
+    `attachment_type` VARCHAR(16)            DEFAULT NULL COMMENT '附件来源：SPOOL/MINIO',
+    `attachment_ref`  VARCHAR(1000)          DEFAULT NULL COMMENT '附件位置：MinIO对象路径',
+    `status`          VARCHAR(16)   NOT NULL COMMENT '状态：PENDING/SENDING/SENT/FAILED',
+    `attempts`        INT           NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+    `next_attempt_at` DATETIME(6)   NOT NULL COMMENT '下次发送时间',
+    `locked_until`    DATETIME(6)            DEFAULT NULL COMMENT '认领租约到期时间',
+    `last_error`      VARCHAR(1000)          DEFAULT NULL COMMENT '最近一次失败原因',
+    `created_at`      DATETIME(6)   NOT NULL,
+    `sent_at`         DATETIME(6)            DEFAULT NULL,
+    PRIMARY KEY (`id`),
+    KEY `idx_mail_outbox_status_next` (`status`, `next_attempt_at`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='邮件发件箱';
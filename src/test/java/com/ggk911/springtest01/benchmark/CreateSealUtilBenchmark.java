@@ -0,0 +1,54 @@
+package com.ggk911.springtest01.benchmark;
+
+import com.ggk911.springtest01.util.CreateSealUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CreateSealUtil基准：方章(按字数分支)、圆章
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-09 14:20
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateSealUtilBenchmark {
+
+    /**
+     * 方章名称，覆盖2/3/4/6字分支，含生僻字
+     */
+    @Param({"张三", "欧阳𬱖", "司马相如", "重庆某某公司"})
+    private String personName;
+
+    private static final String COMPANY_NAME = "重庆某某科技有限公司合同专用章";
+
+    @Benchmark
+    public byte[] createSquareSeal() {
+        return CreateSealUtil.createSquareSeal(personName);
+    }
+
+    @Benchmark
+    public byte[] createCircleSeal() {
+        return CreateSealUtil.createCircleSeal(COMPANY_NAME);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(CreateSealUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,190 @@
+package com.ggk911.springtest01.benchmark;
+
+import com.ggk911.springtest01.util.CsrUtil;
+import com.ggk911.springtest01.util.PemFormatUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Cipher;
+import javax.security.auth.x500.X500Principal;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CsrUtil单次调用开销基准：legacy*为改造前写法(每次注册提供者/getInstance)，其余为当前实现
+ * generateCsr*含密钥对生成(未启用密钥池)；签名/验签见Sm2SignBenchmark
+ * *Contended为8线程并发生成CSR：legacy为改造前每次向控制台打印密钥/PEM/Base64，多线程下在System.out锁上排队
+ * 运行main方法或 java -cp ... org.openjdk.jmh.Main CsrUtilBenchmark
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-31 11:20
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsrUtilBenchmark {
+
+    private static final Provider LEGACY_BC = new BouncyCastleProvider();
+
+    private static final String CSR_PEM_TEMPLATE = "-----BEGIN CERTIFICATE REQUEST-----\n%s\n-----END CERTIFICATE REQUEST-----\n";
+
+    private String publicKeyStr;
+    private String privateKeyStr;
+    private String csrPem;
+    private PublicKey publicKey;
+    private PrivateKey privateKey;
+    private byte[] encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        publicKey = keyPair.getPublic();
+        privateKey = keyPair.getPrivate();
+        publicKeyStr = Base64.getEncoder().encodeToString(publicKey.getEncoded());
+        privateKeyStr = Base64.getEncoder().encodeToString(privateKey.getEncoded());
+        csrPem = String.format(CSR_PEM_TEMPLATE, CsrUtil.generateCsr(true, "BENCH0001"));
+        encrypted = CsrUtil.encrypt(publicKey, "benchmark");
+    }
+
+    @Benchmark
+    public String generateCsrRsa() throws Exception {
+        return CsrUtil.generateCsr(true, "BENCH0001");
+    }
+
+    @Benchmark
+    public String generateCsrSm2() throws Exception {
+        return CsrUtil.generateCsr(false, "BENCH0001");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String legacyGenerateCsrSm2Contended() throws Exception {
+        return legacyGenerateCsr(false, "BENCH0001");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generateCsrSm2Contended() throws Exception {
+        return CsrUtil.generateCsr(false, "BENCH0001");
+    }
+
+    @Benchmark
+    public Object legacyConvertPem() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        return CsrUtil.convertPemToPKCS10CertificationRequest(csrPem);
+    }
+
+    @Benchmark
+    public Object convertPem() throws Exception {
+        return CsrUtil.convertPemToPKCS10CertificationRequest(csrPem);
+    }
+
+    @Benchmark
+    public Object legacyLoadPublicKey() throws Exception {
+        return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKeyStr)));
+    }
+
+    @Benchmark
+    public Object loadPublicKey() throws Exception {
+        return CsrUtil.loadPublicKey(publicKeyStr);
+    }
+
+    @Benchmark
+    public Object legacyLoadPrivateKey() throws Exception {
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKeyStr)));
+    }
+
+    @Benchmark
+    public Object loadPrivateKey() throws Exception {
+        return CsrUtil.loadPrivateKey(privateKeyStr);
+    }
+
+    @Benchmark
+    public byte[] legacyEncrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA");
+        cipher.init(Cipher.ENCRYPT_MODE, publicKey);
+        return cipher.doFinal("benchmark".getBytes());
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return CsrUtil.encrypt(publicKey, "benchmark");
+    }
+
+    @Benchmark
+    public byte[] legacyDecrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA");
+        cipher.init(Cipher.DECRYPT_MODE, privateKey);
+        return cipher.doFinal(encrypted);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return CsrUtil.decrypt(privateKey, encrypted);
+    }
+
+    /**
+     * 改造前的generateCsr：每次新建生成器并打印私钥、公钥、PEM及Base64格式CSR
+     */
+    private static String legacyGenerateCsr(boolean isRsaNotEcc, String sn) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(isRsaNotEcc ? "RSA" : "EC", LEGACY_BC);
+        if (isRsaNotEcc) {
+            generator.initialize(2048);
+        } else {
+            generator.initialize(new ECGenParameterSpec("sm2p256v1"));
+        }
+        KeyPair keyPair = generator.generateKeyPair();
+        PrivateKey privateKey = keyPair.getPrivate();
+        PublicKey publicKey = keyPair.getPublic();
+        System.out.println("----------打印私钥");
+        System.out.println(isRsaNotEcc ? PemFormatUtil.priKeyToPem(privateKey) : PemFormatUtil.pemFormat("EC PRIVATE KEY", privateKey.getEncoded()));
+        System.out.println("----------打印公钥");
+        System.out.println(isRsaNotEcc ? PemFormatUtil.pubKeyToPem(publicKey) : PemFormatUtil.pemFormat("EC PUBLIC KEY", publicKey.getEncoded()));
+        X500Principal subject = new X500Principal("CN=*.dlyd.com,OU=IT,O=dlyd,L=Chongqing,ST=Chongqing,C=CN,SERIALNUMBER=" + sn);
+        ContentSigner signer = new JcaContentSignerBuilder(isRsaNotEcc ? "SHA256WithRSA" : "SM3withSM2")
+                .setProvider(LEGACY_BC)
+                .build(privateKey);
+        PKCS10CertificationRequest csr = new JcaPKCS10CertificationRequestBuilder(subject, publicKey).build(signer);
+        System.out.println("----------打印PEM 格式CSR");
+        System.out.println(PemFormatUtil.csrToPem(csr));
+        String baseStr = Base64.getEncoder().encodeToString(csr.getEncoded());
+        System.out.println("----------打印Base64格式CSR");
+        System.out.println(baseStr);
+        return baseStr;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(CsrUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
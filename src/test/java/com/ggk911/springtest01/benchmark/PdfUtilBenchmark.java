@@ -0,0 +1,84 @@
+package com.ggk911.springtest01.benchmark;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.ggk911.springtest01.util.pdf.PdfParameterEntity;
+import com.ggk911.springtest01.util.pdf.PdfUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PdfUtil基准：模板填充、解析模板域
+ * 模板为test resources下benchmark/template.pdf(2页，5个文本域，含多行域)
+ * longText为true时填充长文本，触发字号逐级缩小
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-09 14:00
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfUtilBenchmark {
+
+    @Param({"false", "true"})
+    private boolean longText;
+
+    private byte[] template;
+
+    private Map<String, String> fillData;
+
+    @Setup
+    public void setup() {
+        template = ResourceUtil.readBytes("benchmark/template.pdf");
+        String remark = longText ? repeat("本合同一式两份，甲乙双方各执一份，自双方签字盖章之日起生效。", 12) : "无";
+        fillData = new HashMap<>();
+        fillData.put("name", longText ? "欧阳𬱖𬱖(生僻字)测试用户姓名较长" : "张三");
+        fillData.put("idCard", "500101199001011234");
+        fillData.put("address", longText ? repeat("重庆市渝北区龙溪街道", 8) : "重庆市渝北区");
+        fillData.put("date", "2024年02月09日");
+        fillData.put("remark", remark);
+    }
+
+    private static String repeat(String str, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(str);
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    public byte[] pdfFill() {
+        return PdfUtil.pdfFill(template, fillData);
+    }
+
+    @Benchmark
+    public List<PdfParameterEntity> getPdfDomain() {
+        List<PdfParameterEntity> parameters = new ArrayList<>();
+        PdfUtil.getPdfDomain(template, parameters, "BENCH0001");
+        return parameters;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(PdfUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.ggk911.springtest01.benchmark;
+
+import cn.com.mcsca.pki.core.util.SignatureUtil;
+import com.ggk911.springtest01.util.SecurityProviderUtil;
+import com.ggk911.springtest01.util.SignJsonUtil;
+import com.ggk911.springtest01.util.Sm2SignUtil;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.SM2Signer;
+import org.bouncycastle.crypto.util.PrivateKeyFactory;
+import org.bouncycastle.jce.interfaces.ECPrivateKey;
+import org.bouncycastle.jce.interfaces.ECPublicKey;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.encoders.Base64;
+import org.bouncycastle.util.encoders.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名/验签接口的生产路径基准(与CommonServiceImpl一致)
+ * sign：SignJsonUtil.toJsonString + SignatureUtil.doSign
+ * verifyCachedKey：公钥命中Sm2SignUtil缓存，只做JSON写入与SM2运算
+ * verifyUncachedKey：轮流使用多于缓存容量的公钥，每次都解析公钥
+ * verifySecuEngine：本地无法验签时的SecuEngine回退
+ * 运行main方法或 java -cp ... org.openjdk.jmh.Main Sm2SignBenchmark
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-12 14:00
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Sm2SignBenchmark {
+
+    /**
+     * 公钥数量，大于Sm2SignUtil公钥缓存容量(1024)，顺序轮转时每次都未命中
+     */
+    private static final int UNCACHED_KEYS = 2048;
+
+    private static final String REQ_HEAD = "{\"appId\":\"springTest01\",\"timestamp\":\"2024-02-12 14:00:00\",\"version\":\"1.0\"}";
+
+    private static final String REQ_BODY = "{\"name\":\"重庆某某科技有限公司\",\"idNum\":\"91500000MA5U000000\",\"amount\":12345.67,"
+            + "\"items\":[{\"code\":\"A001\",\"desc\":\"测试明细一\"},{\"code\":\"A002\",\"desc\":\"测试明细二\"}]}";
+
+    private String priKey;
+    private String pubKey;
+    private String signValue;
+    private String[] pubKeys;
+    private String[] signValues;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC", SecurityProviderUtil.BC);
+        generator.initialize(new ECGenParameterSpec("sm2p256v1"), new SecureRandom());
+        KeyPair keyPair = generator.generateKeyPair();
+        priKey = sdkPriKey(keyPair);
+        pubKey = Hex.toHexString(((ECPublicKey) keyPair.getPublic()).getQ().getEncoded(false));
+        signValue = SignatureUtil.doSign(priKey, SignJsonUtil.toJsonString(REQ_HEAD, REQ_BODY));
+
+        byte[] data = SignJsonUtil.toBytes(REQ_HEAD, REQ_BODY);
+        pubKeys = new String[UNCACHED_KEYS];
+        signValues = new String[UNCACHED_KEYS];
+        for (int i = 0; i < UNCACHED_KEYS; i++) {
+            KeyPair pair = generator.generateKeyPair();
+            SM2Signer signer = new SM2Signer();
+            signer.init(true, PrivateKeyFactory.createKey(pair.getPrivate().getEncoded()));
+            signer.update(data, 0, data.length);
+            pubKeys[i] = Hex.toHexString(((ECPublicKey) pair.getPublic()).getQ().getEncoded(false));
+            signValues[i] = Base64.toBase64String(signer.generateSignature());
+        }
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return SignJsonUtil.toJsonString(REQ_HEAD, REQ_BODY);
+    }
+
+    @Benchmark
+    public String sign() throws Exception {
+        return SignatureUtil.doSign(priKey, SignJsonUtil.toJsonString(REQ_HEAD, REQ_BODY));
+    }
+
+    @Benchmark
+    public boolean verifyCachedKey() {
+        return Sm2SignUtil.verifyJson(Sm2SignUtil.parsePublicKey(pubKey), REQ_HEAD, REQ_BODY, signValue);
+    }
+
+    @Benchmark
+    public boolean verifyUncachedKey() {
+        int i = next;
+        next = (i + 1) % UNCACHED_KEYS;
+        ECPublicKeyParameters publicKey = Sm2SignUtil.parsePublicKey(pubKeys[i]);
+        return Sm2SignUtil.verifyJson(publicKey, REQ_HEAD, REQ_BODY, signValues[i]);
+    }
+
+    @Benchmark
+    public boolean verifySecuEngine() throws Exception {
+        return Sm2SignUtil.secuEngine().VerifySignDataWithSM2ByPublicKey(pubKey, SignJsonUtil.toBytes(REQ_HEAD, REQ_BODY), signValue);
+    }
+
+    /**
+     * SignatureUtil接受的私钥编码，依次尝试裸私钥Base64、HEX、PKCS#8 Base64
+     */
+    private static String sdkPriKey(KeyPair keyPair) {
+        byte[] d = BigIntegers.asUnsignedByteArray(32, ((ECPrivateKey) keyPair.getPrivate()).getD());
+        for (String candidate : new String[]{Base64.toBase64String(d), Hex.toHexString(d), Base64.toBase64String(keyPair.getPrivate().getEncoded())}) {
+            try {
+                if (SignatureUtil.doSign(candidate, "{}") != null) {
+                    return candidate;
+                }
+            } catch (Exception e) {
+                // 格式不被接受，尝试下一种
+            }
+        }
+        throw new IllegalStateException("SignatureUtil不接受所试私钥格式");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(Sm2SignBenchmark.class.getSimpleName()).build()).run();
+    }
+}
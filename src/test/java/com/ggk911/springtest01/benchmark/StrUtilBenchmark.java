@@ -0,0 +1,49 @@
+package com.ggk911.springtest01.benchmark;
+
+import com.ggk911.springtest01.util.StrUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StrUtil.subString基准：普通中文与含生僻字(UTF-16代理对)的字符串
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-09 14:30
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StrUtilBenchmark {
+
+    @Param({"重庆某某科技有限公司", "𬱖𬱖欧阳𠀀科技𬱖有限公司"})
+    private String str;
+
+    @Benchmark
+    public String subStringHead() {
+        return StrUtil.subString(str, 0, 1);
+    }
+
+    @Benchmark
+    public String subStringTail() {
+        return StrUtil.subString(str, 5, 8);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(StrUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.ggk911.springtest01.benchmark;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.ggk911.springtest01.util.word.WordTemplateUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WordTemplateUtil基准：docx模板填充
+ * 模板为test resources下benchmark/template.docx(20段变量段落、普通表格、明细表格items)
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-09 14:10
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WordTemplateUtilBenchmark {
+
+    /**
+     * 明细表格行数
+     */
+    @Param({"1", "50"})
+    private int detailRows;
+
+    private byte[] template;
+
+    private Map<String, Object> paramMap;
+
+    private Map<String, List<Map<String, String>>> detailTableData;
+
+    @Setup
+    public void setup() {
+        template = ResourceUtil.readBytes("benchmark/template.docx");
+        paramMap = new HashMap<>();
+        paramMap.put("contractNo", "HT-2024-0001");
+        paramMap.put("partyA", "重庆某某科技有限公司");
+        paramMap.put("partyB", "张三");
+        paramMap.put("date", "2024年02月09日");
+        paramMap.put("amount", "10000.00");
+        List<Map<String, String>> items = new ArrayList<>(detailRows);
+        for (int i = 0; i < detailRows; i++) {
+            Map<String, String> item = new HashMap<>();
+            item.put("名称", "服务费" + i);
+            item.put("数量", String.valueOf(i + 1));
+            item.put("金额", (i + 1) * 100 + ".00");
+            items.add(item);
+        }
+        detailTableData = Collections.singletonMap("items", items);
+    }
+
+    @Benchmark
+    public byte[] setDocxParam() {
+        return WordTemplateUtil.setDocxParam(template, paramMap, detailTableData);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(WordTemplateUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
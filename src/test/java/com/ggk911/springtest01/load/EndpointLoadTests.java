@@ -0,0 +1,302 @@
+package com.ggk911.springtest01.load;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.resource.ResourceUtil;
+import cn.hutool.core.util.RandomUtil;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.FormBody;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 接口压测：启动完整应用，MinIO由进程内S3兼容服务(FakeS3Server)代替，SMTP由GreenMail代替，数据库使用H2
+ * 按配置并发依次压测各接口，输出每个接口的p50/p95/p99延迟、吞吐、堆内存峰值与GC次数/耗时，并写入JSON报告
+ * 默认不执行，运行：mvn -P load test [-Dload.concurrency=32 -Dload.requests=1000 -Dload.warmup=100]
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-10 10:30
+ **/
+@Slf4j
+@EnabledIfSystemProperty(named = "load.enabled", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.druid.driver-class-name=org.h2.Driver",
+        "spring.datasource.druid.url=jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.druid.username=sa",
+        "spring.datasource.druid.password=",
+        // H2下由Hibernate建表，关闭防火墙
+        "spring.datasource.druid.filters=stat",
+        "spring.datasource.druid.filter.wall.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // 密钥池后台生成会占用CPU，干扰压测结果
+        "csr.key-pair-pool.enabled=false",
+        "mail.pool.starttls=false",
+        "mail.pool.from=load@localhost"
+})
+public class EndpointLoadTests {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+
+    private static final int REQUESTS = Integer.getInteger("load.requests", 500);
+
+    private static final int WARMUP = Integer.getInteger("load.warmup", 50);
+
+    private static final String REPORT = System.getProperty("load.report", "target/load-report.json");
+
+    private static FakeS3Server s3;
+
+    private static GreenMail greenMail;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    private OkHttpClient client;
+
+    private String baseUrl;
+
+    @DynamicPropertySource
+    static void stubServers(DynamicPropertyRegistry registry) throws IOException {
+        s3 = new FakeS3Server();
+        s3.start();
+        greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        greenMail.start();
+        registry.add("minio.endpoint", s3::getEndpoint);
+        registry.add("mail.pool.host", () -> "127.0.0.1");
+        registry.add("mail.pool.port", () -> greenMail.getSmtp().getPort());
+    }
+
+    @AfterAll
+    static void stopServers() {
+        if (greenMail != null) {
+            greenMail.stop();
+        }
+        if (s3 != null) {
+            s3.stop();
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(CONCURRENCY, 1, TimeUnit.MINUTES))
+                .readTimeout(2, TimeUnit.MINUTES)
+                .build();
+        client.dispatcher().setMaxRequestsPerHost(CONCURRENCY);
+        baseUrl = "http://127.0.0.1:" + port + contextPath;
+    }
+
+    @Test
+    public void endpoints() throws Exception {
+        byte[] pdf = ResourceUtil.readBytes("benchmark/template.pdf");
+        byte[] pic = ResourceUtil.readBytes("图片1.png");
+        byte[] file = RandomUtil.randomBytes(256 * 1024);
+        String textDomainParams = "{\"name\":\"张三\",\"idCard\":\"500101199001011234\",\"address\":\"重庆市渝北区\",\"date\":\"2024年02月09日\",\"remark\":\"无\"}";
+        String downloadPath = call(upload(file)).trim();
+
+        Map<String, Supplier<Request>> endpoints = new LinkedHashMap<>();
+        endpoints.put("/common/pdf/fill", () -> post("/common/pdf/fill", new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("pdfFile", "template.pdf", RequestBody.create(OCTET_STREAM, pdf))
+                .addFormDataPart("picFile", "pic.png", RequestBody.create(OCTET_STREAM, pic))
+                .addFormDataPart("textDomainParams", textDomainParams)
+                .addFormDataPart("picDomainParams", "{}")
+                .build()));
+        endpoints.put("/file/upload", () -> upload(file));
+        endpoints.put("/file/download", () -> post("/file/download", new FormBody.Builder().add("filePath", downloadPath).build()));
+        endpoints.put("/common/seal/personSeal", () -> post("/common/seal/personSeal", new FormBody.Builder().add("name", "张三").build()));
+        endpoints.put("/common/seal/enterpriseSeal", () -> post("/common/seal/enterpriseSeal", new FormBody.Builder().add("name", "重庆某某科技有限公司合同专用章").build()));
+
+        log.info("压测开始，并发：{}，每接口请求数：{}，预热：{}", CONCURRENCY, REQUESTS, WARMUP);
+        List<LoadResult> results = new ArrayList<>();
+        for (Map.Entry<String, Supplier<Request>> endpoint : endpoints.entrySet()) {
+            results.add(run(endpoint.getKey(), endpoint.getValue()));
+        }
+        log.info(String.format("%-30s %8s %8s %8s %8s %10s %10s %6s %8s %6s %8s",
+                "endpoint", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)", "req/s", "heap(MB)", "gc", "gc(ms)", "error", "rejected"));
+        for (LoadResult result : results) {
+            log.info(String.format("%-30s %8.1f %8.1f %8.1f %8.1f %10.1f %10.1f %6d %8d %6d %8d",
+                    result.getEndpoint(), result.getP50Millis(), result.getP95Millis(), result.getP99Millis(), result.getMaxMillis(),
+                    result.getThroughput(), result.getHeapPeakMb(), result.getGcCount(), result.getGcMillis(), result.getErrors(), result.getRejected()));
+        }
+        FileUtil.writeUtf8String(JSON.toJSONString(results, SerializerFeature.PrettyFormat), REPORT);
+        log.info("压测报告：{}", FileUtil.getAbsolutePath(REPORT));
+        for (LoadResult result : results) {
+            assertEquals(0, result.getErrors(), result.getEndpoint() + " 存在失败请求");
+        }
+    }
+
+    /**
+     * 预热后按并发压测一个接口
+     */
+    private LoadResult run(String endpoint, Supplier<Request> request) throws InterruptedException {
+        drive(request, WARMUP, new long[WARMUP], new AtomicInteger(), new AtomicInteger());
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        long start = System.nanoTime();
+        drive(request, REQUESTS, latencies, errors, rejected);
+        long elapsed = System.nanoTime() - start;
+
+        LoadResult result = new LoadResult();
+        result.setEndpoint(endpoint);
+        result.setConcurrency(CONCURRENCY);
+        result.setRequests(REQUESTS);
+        result.setErrors(errors.get());
+        result.setRejected(rejected.get());
+        Arrays.sort(latencies);
+        result.setP50Millis(percentile(latencies, 0.50));
+        result.setP95Millis(percentile(latencies, 0.95));
+        result.setP99Millis(percentile(latencies, 0.99));
+        result.setMaxMillis(latencies[latencies.length - 1] / 1_000_000.0);
+        result.setThroughput(REQUESTS * 1_000_000_000.0 / elapsed);
+        // 各堆内存区峰值之和(不同区峰值时刻不同，为上限估计)
+        result.setHeapPeakMb(heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() / 1024.0 / 1024.0);
+        result.setGcCount(gcCount() - gcCount);
+        result.setGcMillis(gcMillis() - gcMillis);
+        return result;
+    }
+
+    /**
+     * 以CONCURRENCY个线程发送count个请求，记录每个请求耗时(纳秒)；429(舱壁已满)计入rejected，其余非2xx计入errors
+     */
+    private void drive(Supplier<Request> request, int count, long[] latencies, AtomicInteger errors, AtomicInteger rejected) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            workers.execute(() -> {
+                try {
+                    for (int n = next.getAndIncrement(); n < count; n = next.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        try (Response response = client.newCall(request.get()).execute()) {
+                            // 读完响应体才算请求结束
+                            response.body().bytes();
+                            if (response.code() == TOO_MANY_REQUESTS) {
+                                rejected.incrementAndGet();
+                            } else if (!response.isSuccessful()) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[n] = System.nanoTime() - start;
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        workers.shutdown();
+    }
+
+    private Request upload(byte[] file) {
+        return post("/file/upload", new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("file", "load.bin", RequestBody.create(OCTET_STREAM, file))
+                .build());
+    }
+
+    private Request post(String path, RequestBody body) {
+        return new Request.Builder().url(baseUrl + path).post(body).build();
+    }
+
+    private String call(Request request) throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            assertEquals(200, response.code(), request.url().toString());
+            return response.body().string();
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    /**
+     * 单个接口压测结果
+     */
+    @Data
+    public static class LoadResult {
+        private String endpoint;
+        private int concurrency;
+        private int requests;
+        private int errors;
+        /**
+         * 舱壁拒绝(429)数，并发超过舱壁并发+排队时出现
+         */
+        private int rejected;
+        private double p50Millis;
+        private double p95Millis;
+        private double p99Millis;
+        private double maxMillis;
+        /**
+         * 吞吐(请求/秒)
+         */
+        private double throughput;
+        private double heapPeakMb;
+        private long gcCount;
+        private long gcMillis;
+    }
+}
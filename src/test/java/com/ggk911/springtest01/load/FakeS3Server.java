@@ -0,0 +1,162 @@
+package com.ggk911.springtest01.load;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 进程内S3兼容服务(只存内存)，压测时代替MinIO
+ * 只实现MinioUtil用到的接口：查询桶区域、桶是否存在、上传/下载/删除对象，不校验签名
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-10 10:00
+ **/
+public class FakeS3Server {
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    public FakeS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 512);
+        server.createContext("/", exchange -> {
+            try {
+                handle(exchange);
+            } catch (IOException | RuntimeException e) {
+                error(exchange, 500, "InternalError", e.getMessage());
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 服务地址，配置到minio.endpoint
+     */
+    public String getEndpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * 已存对象数
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(1);
+        String query = exchange.getRequestURI().getRawQuery();
+        int slash = path.indexOf('/');
+        String bucket = slash < 0 ? path : path.substring(0, slash);
+        String key = slash < 0 ? "" : path.substring(slash + 1);
+        String method = exchange.getRequestMethod();
+        if (key.isEmpty()) {
+            if ("GET".equals(method) && query != null && query.contains("location")) {
+                // 空区域即us-east-1
+                xml(exchange, 200, "<LocationConstraint xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"></LocationConstraint>");
+            } else if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                error(exchange, 501, "NotImplemented", method + " " + bucket);
+            }
+            return;
+        }
+        String id = bucket + "/" + key;
+        switch (method) {
+            case "PUT": {
+                byte[] data = IoUtil.readBytes(exchange.getRequestBody(), false);
+                String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                StoredObject object = new StoredObject(data, contentType == null ? "application/octet-stream" : contentType,
+                        "\"" + DigestUtil.md5Hex(data) + "\"", ZonedDateTime.now(ZoneOffset.UTC));
+                objects.put(id, object);
+                exchange.getResponseHeaders().set("ETag", object.etag);
+                exchange.sendResponseHeaders(200, -1);
+                break;
+            }
+            case "GET":
+            case "HEAD": {
+                StoredObject object = objects.get(id);
+                if (object == null) {
+                    error(exchange, 404, "NoSuchKey", id);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", object.contentType);
+                exchange.getResponseHeaders().set("ETag", object.etag);
+                exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified));
+                if ("HEAD".equals(method)) {
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.data.length));
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, object.data.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(object.data);
+                    }
+                }
+                break;
+            }
+            case "DELETE":
+                objects.remove(id);
+                exchange.sendResponseHeaders(204, -1);
+                break;
+            default:
+                error(exchange, 501, "NotImplemented", method + " " + id);
+        }
+    }
+
+    private static void error(HttpExchange exchange, int status, String code, String message) throws IOException {
+        xml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + message + "</Message><Resource>"
+                + exchange.getRequestURI().getPath() + "</Resource><RequestId>fake</RequestId><HostId>fake</HostId></Error>");
+    }
+
+    private static void xml(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (XML_HEADER + body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static class StoredObject {
+        private final byte[] data;
+        private final String contentType;
+        private final String etag;
+        private final ZonedDateTime lastModified;
+
+        StoredObject(byte[] data, String contentType, String etag, ZonedDateTime lastModified) {
+            this.data = data;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.ggk911.springtest01.service.impl;
+
+import com.ggk911.springtest01.config.properties.ExecutorConfig;
+import com.ggk911.springtest01.config.properties.MailOutboxConfig;
+import com.ggk911.springtest01.config.properties.MailPoolConfig;
+import com.ggk911.springtest01.entity.MailOutbox;
+import com.ggk911.springtest01.repository.MailOutboxRepository;
+import com.ggk911.springtest01.util.MinioUtil;
+import com.ggk911.springtest01.util.executor.ExecutorRegistry;
+import com.ggk911.springtest01.util.mail.AttachmentSources;
+import com.ggk911.springtest01.util.mail.MailMessage;
+import com.ggk911.springtest01.util.mail.PooledJavaMailSender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.MailSendException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 邮件发件箱测试(H2内存库)
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-05 15:30
+ **/
+@DataJpaTest(properties = {"mail.outbox.enabled=false", "mail.outbox.max-attempts=2"})
+@Import({MailOutboxServiceImpl.class, MailOutboxConfig.class, MailPoolConfig.class, ExecutorConfig.class, ExecutorRegistry.class,
+        MailOutboxServiceImplTests.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MailOutboxServiceImplTests {
+
+    @TestConfiguration
+    @EnableConfigurationProperties
+    static class Config {
+    }
+
+    private static final String SPOOL_OBJECT = "2024-02/05/spool.bin";
+
+    @MockBean(name = "PooledMailSender")
+    private PooledJavaMailSender mailSender;
+
+    @MockBean
+    private MinioUtil minioUtil;
+
+    @Autowired
+    private MailOutboxServiceImpl mailOutboxService;
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mailOutboxRepository.deleteAll();
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        when(minioUtil.upload(any(InputStream.class), anyString(), anyString())).thenReturn(SPOOL_OBJECT);
+        when(minioUtil.openStream(SPOOL_OBJECT)).thenAnswer(invocation -> new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(minioUtil.remove(SPOOL_OBJECT)).thenReturn(true);
+    }
+
+    /**
+     * 发送成功置为已发送
+     */
+    @Test
+    public void dispatchSent() {
+        Long id = mailOutboxService.enqueue(newMessage());
+        assertEquals(1, mailOutboxService.dispatchOnce());
+        MailOutbox outbox = mailOutboxRepository.findById(id).orElseThrow(IllegalStateException::new);
+        assertEquals(MailOutbox.Status.SENT, outbox.getStatus());
+        assertEquals(1, outbox.getAttempts());
+        assertNotNull(outbox.getSentAt());
+        // 附件暂存到MinIO(各节点均可读取)，发送后删除
+        assertEquals(MailOutbox.AttachmentType.SPOOL, outbox.getAttachmentType());
+        assertEquals(SPOOL_OBJECT, outbox.getAttachmentRef());
+        verify(minioUtil).remove(SPOOL_OBJECT);
+        assertEquals(0, mailOutboxService.dispatchOnce());
+    }
+
+    /**
+     * 发送失败退避后重试，超过最大次数置为失败
+     */
+    @Test
+    public void dispatchRetryThenFailed() {
+        doThrow(new MailSendException("connection refused")).when(mailSender).send(any(MimeMessage.class));
+        Long id = mailOutboxService.enqueue(newMessage());
+        assertEquals(1, mailOutboxService.dispatchOnce());
+        MailOutbox outbox = mailOutboxRepository.findById(id).orElseThrow(IllegalStateException::new);
+        assertEquals(MailOutbox.Status.PENDING, outbox.getStatus());
+        assertEquals(1, outbox.getAttempts());
+        assertTrue(outbox.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotNull(outbox.getLastError());
+        // 未到重试时间不认领
+        assertEquals(0, mailOutboxService.dispatchOnce());
+
+        outbox.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        mailOutboxRepository.save(outbox);
+        assertEquals(1, mailOutboxService.dispatchOnce());
+        outbox = mailOutboxRepository.findById(id).orElseThrow(IllegalStateException::new);
+        assertEquals(MailOutbox.Status.FAILED, outbox.getStatus());
+        assertEquals(2, outbox.getAttempts());
+        assertEquals(1, mailOutboxService.getRetriedCount());
+        assertEquals(1, mailOutboxService.getFailedCount());
+    }
+
+    /**
+     * 发送期间租约过期并被其他节点重新认领：不覆盖对方的认领，不删除暂存附件
+     */
+    @Test
+    public void staleLeaseNotCompleted() {
+        Long id = mailOutboxService.enqueue(newMessage());
+        LocalDateTime otherLease = LocalDateTime.now().plusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        doAnswer(invocation -> {
+            MailOutbox reclaimed = mailOutboxRepository.findById(id).orElseThrow(IllegalStateException::new);
+            reclaimed.setLockedUntil(otherLease);
+            mailOutboxRepository.save(reclaimed);
+            return null;
+        }).when(mailSender).send(any(MimeMessage.class));
+
+        assertEquals(1, mailOutboxService.dispatchOnce());
+        MailOutbox outbox = mailOutboxRepository.findById(id).orElseThrow(IllegalStateException::new);
+        assertEquals(MailOutbox.Status.SENDING, outbox.getStatus());
+        assertEquals(otherLease, outbox.getLockedUntil());
+        verify(minioUtil, never()).remove(SPOOL_OBJECT);
+    }
+
+    private MailMessage newMessage() {
+        return new MailMessage("receiver@localhost", "测试邮件", "内容", false, AttachmentSources.bytes(new byte[]{1, 2, 3}, "附件.bin"), "附件.bin");
+    }
+}
@@ -0,0 +1,124 @@
+package com.ggk911.springtest01.util;
+
+import com.ggk911.springtest01.config.properties.ExecutorConfig;
+import com.ggk911.springtest01.config.properties.MailPoolConfig;
+import com.ggk911.springtest01.util.executor.ExecutorRegistry;
+import com.ggk911.springtest01.util.mail.BulkSendResult;
+import com.ggk911.springtest01.util.mail.MailMessage;
+import com.ggk911.springtest01.util.mail.PooledJavaMailSender;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SendEmailUtil批量发送测试(GreenMail进程内SMTP)
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-12 10:00
+ **/
+public class SendEmailUtilTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private PooledJavaMailSender mailSender;
+
+    private ExecutorRegistry executorRegistry;
+
+    @AfterEach
+    public void tearDown() {
+        if (mailSender != null) {
+            mailSender.destroy();
+        }
+        if (executorRegistry != null) {
+            executorRegistry.shutdown();
+        }
+    }
+
+    /**
+     * 批次中间一封构建失败(收件地址为空)只记该封失败，同批后续邮件照常发送，每封都有结果
+     */
+    @Test
+    public void badMessageInBatch() {
+        SendEmailUtil sendEmailUtil = newSendEmailUtil(2, 1, 3, 0);
+        List<MailMessage> messages = newMessages(7);
+        messages.get(4).setTo(null);
+
+        BulkSendResult result = sendEmailUtil.sendBulk(messages.iterator());
+
+        assertEquals(6, result.getSent());
+        assertEquals(1, result.getFailed());
+        assertEquals(Collections.singleton(4), result.getFailures().keySet());
+        assertEquals(6, greenMail.getReceivedMessages().length);
+    }
+
+    /**
+     * 批量最多同时占用 连接池大小 - bulk-reserved-connections 个连接
+     */
+    @Test
+    public void reservedConnections() {
+        SendEmailUtil sendEmailUtil = newSendEmailUtil(3, 1, 1, 0);
+
+        BulkSendResult result = sendEmailUtil.sendBulk(newMessages(12).iterator());
+
+        assertEquals(12, result.getSent());
+        assertTrue(mailSender.getTransportPool().getCreatedCount() <= 2);
+    }
+
+    /**
+     * 总速率受bulk-rate-per-second限制：20封/秒发5封，后4封各等待50ms
+     */
+    @Test
+    public void rateLimited() {
+        SendEmailUtil sendEmailUtil = newSendEmailUtil(2, 0, 1, 20);
+
+        long start = System.nanoTime();
+        BulkSendResult result = sendEmailUtil.sendBulk(newMessages(5).iterator());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(5, result.getSent());
+        assertTrue(elapsedMillis >= 180, "耗时：" + elapsedMillis);
+    }
+
+    private SendEmailUtil newSendEmailUtil(int maxConnections, int reservedConnections, int batchSize, double ratePerSecond) {
+        mailSender = new PooledJavaMailSender();
+        mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender.setDefaultEncoding("UTF-8");
+        mailSender.initPool(maxConnections, 60_000, 10_000, 5_000);
+        executorRegistry = new ExecutorRegistry(new ExecutorConfig());
+
+        MailPoolConfig mailPoolConfig = new MailPoolConfig();
+        mailPoolConfig.setFrom("from@localhost");
+        mailPoolConfig.setMaxConnections(maxConnections);
+        mailPoolConfig.setBulkReservedConnections(reservedConnections);
+        mailPoolConfig.setBulkBatchSize(batchSize);
+        mailPoolConfig.setBulkRatePerSecond(ratePerSecond);
+
+        SendEmailUtil sendEmailUtil = new SendEmailUtil();
+        ReflectionTestUtils.setField(sendEmailUtil, "mailSender", mailSender);
+        ReflectionTestUtils.setField(sendEmailUtil, "mailPoolConfig", mailPoolConfig);
+        ReflectionTestUtils.setField(sendEmailUtil, "executorRegistry", executorRegistry);
+        sendEmailUtil.init();
+        return sendEmailUtil;
+    }
+
+    private static List<MailMessage> newMessages(int count) {
+        List<MailMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(new MailMessage("to" + i + "@localhost", "批量" + i, "内容" + i, false, null, null));
+        }
+        return messages;
+    }
+}
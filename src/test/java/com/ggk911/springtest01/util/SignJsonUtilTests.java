@@ -0,0 +1,61 @@
+package com.ggk911.springtest01.util;
+
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SignJsonUtil测试
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-01-29 16:20
+ **/
+public class SignJsonUtilTests {
+
+    /**
+     * 与fastjson排序序列化结果一致(含U+2028/U+2029、C1控制字符、孤立代理、非BMP字符)
+     */
+    @Test
+    public void sameAsFastjson() {
+        StringBuilder large = new StringBuilder();
+        StringBuilder plainLarge = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            large.append("{\"k\":\"值").append(i).append("\"}\r\n\t\\/\u0001\u007F😀");
+            plainLarge.append("{\"k\":\"值").append(i).append("\"}\\/😀");
+        }
+        String[][] cases = {
+                {"{\"a\":1}", "{\"b\":\"中文\"}"},
+                {null, "body"},
+                {"head", null},
+                {null, null},
+                {"", ""},
+                {"\b\f\u001F ", "\uD83D"},
+                {"head", large.toString()},
+                {plainLarge.toString(), "body"},
+                {"\u2028行分隔\u2029段分隔", "a\u2028b"},
+                {"\u0080\u0085\u009F", "C1\u0090"},
+                {"lone\uDC00low", "high\uD800"},
+                {"\uD842\uDFB7𠮷野家", "😀\uD83C\uDF89"},
+                {"{\"url\":\"http://a/b?c=\\\"d\\\"\"}", "\u00A0\u00FF\uFFFD"},
+        };
+        for (String[] c : cases) {
+            Map<String, String> reqMap = new HashMap<>(2);
+            reqMap.put("reqHead", c[0]);
+            reqMap.put("reqBody", c[1]);
+            String expected = JSONObject.toJSONString(reqMap, SerializerFeature.MapSortField, SerializerFeature.SortField);
+            assertEquals(expected, SignJsonUtil.toJsonString(c[0], c[1]));
+            // 与原实现一致：平台默认字符集
+            assertArrayEquals(expected.getBytes(), SignJsonUtil.toBytes(c[0], c[1]));
+            ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            SignJsonUtil.write(c[0], c[1], streamed::write);
+            assertArrayEquals(expected.getBytes(), streamed.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ggk911.springtest01.util;
+
+import cn.com.mcsca.pki.core.util.SignatureUtil;
+import org.bouncycastle.asn1.gm.GMNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.SM2Signer;
+import org.bouncycastle.jce.interfaces.ECPrivateKey;
+import org.bouncycastle.jce.interfaces.ECPublicKey;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.encoders.Base64;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sm2SignUtil测试
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-11 10:00
+ **/
+public class Sm2SignUtilTests {
+
+    /**
+     * 本地可识别的签名值直接得出结果；无法识别的格式返回null(交由SecuEngine)，不抛异常
+     */
+    @Test
+    public void decodeAndVerify() throws Exception {
+        X9ECParameters x9 = GMNamedCurves.getByName("sm2p256v1");
+        ECKeyPairGenerator generator = new ECKeyPairGenerator();
+        generator.init(new ECKeyGenerationParameters(new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN(), x9.getH()), new SecureRandom()));
+        AsymmetricCipherKeyPair keyPair = generator.generateKeyPair();
+        ECPublicKeyParameters publicKey = (ECPublicKeyParameters) keyPair.getPublic();
+        String pubKey = Hex.toHexString(publicKey.getQ().getEncoded(false));
+
+        byte[] data = SignJsonUtil.toBytes("{\"a\":1}", "{\"b\":\"中文\"}");
+        SM2Signer signer = new SM2Signer();
+        signer.init(true, keyPair.getPrivate());
+        signer.update(data, 0, data.length);
+        String signValue = Base64.toBase64String(signer.generateSignature());
+
+        assertNotNull(Sm2SignUtil.decodeSignature(signValue));
+        assertTrue(Sm2SignUtil.verifyJson(Sm2SignUtil.parsePublicKey(pubKey), "{\"a\":1}", "{\"b\":\"中文\"}", signValue));
+        assertFalse(Sm2SignUtil.verifyJson(Sm2SignUtil.parsePublicKey(pubKey), "{\"a\":2}", "{\"b\":\"中文\"}", signValue));
+
+        // 非Base64、非DER(如裸r||s)
+        for (String unknown : new String[]{"%%%", "", Base64.toBase64String(new byte[64]), null}) {
+            assertNull(Sm2SignUtil.decodeSignature(unknown));
+            assertFalse(Sm2SignUtil.verify(pubKey, data, unknown));
+        }
+    }
+
+    /**
+     * SDK(SignatureUtil.doSign，与CommonServiceImpl签名一致)签名后本地验签通过，确认默认用户ID与Base64 DER签名格式与SDK一致
+     * SDK私钥格式按常见编码依次尝试，均不接受时跳过
+     */
+    @Test
+    public void verifySdkSignature() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC", SecurityProviderUtil.BC);
+        generator.initialize(new ECGenParameterSpec("sm2p256v1"), new SecureRandom());
+        KeyPair keyPair = generator.generateKeyPair();
+        byte[] d = BigIntegers.asUnsignedByteArray(32, ((ECPrivateKey) keyPair.getPrivate()).getD());
+        String pubKey = Hex.toHexString(((ECPublicKey) keyPair.getPublic()).getQ().getEncoded(false));
+
+        String reqHead = "{\"a\":1}";
+        String reqBody = "{\"b\":\"中文\"}";
+        String signValue = null;
+        for (String priKey : new String[]{Base64.toBase64String(d), Hex.toHexString(d), Base64.toBase64String(keyPair.getPrivate().getEncoded())}) {
+            try {
+                signValue = SignatureUtil.doSign(priKey, SignJsonUtil.toJsonString(reqHead, reqBody));
+            } catch (Exception e) {
+                // 私钥格式不被接受，尝试下一种
+                continue;
+            }
+            if (signValue != null) {
+                break;
+            }
+        }
+        Assumptions.assumeTrue(signValue != null, "SignatureUtil不接受所试私钥格式");
+
+        assertNotNull(Sm2SignUtil.decodeSignature(signValue), "SDK签名值不是Base64 DER：" + signValue);
+        assertTrue(Sm2SignUtil.verifyJson(Sm2SignUtil.parsePublicKey(pubKey), reqHead, reqBody, signValue), "本地验签与SDK签名不一致(用户ID或待签数据编码)");
+        assertFalse(Sm2SignUtil.verifyJson(Sm2SignUtil.parsePublicKey(pubKey), reqHead, "{\"b\":\"英文\"}", signValue));
+    }
+}
@@ -0,0 +1,78 @@
+package com.ggk911.springtest01.util.executor;
+
+import com.ggk911.springtest01.config.properties.ExecutorConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 阻塞IO在途任务容量：线程池 vs 虚拟线程
+ * 模拟文件接口：每个请求阻塞100ms(MinIO往返)，同时提交300个，统计同时在途的最大数量与总耗时
+ * 虚拟线程部分需JDK 21+运行，低版本JDK跳过
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-08 11:00
+ **/
+@Slf4j
+public class ExecutorRegistryLoadTests {
+
+    private static final int REQUESTS = 300;
+
+    private static final long IO_MILLIS = 100;
+
+    @Test
+    public void platformPool() throws Exception {
+        ExecutorRegistry registry = new ExecutorRegistry(new ExecutorConfig());
+        try {
+            int peak = measure("线程池", registry.executor(ExecutorType.STORAGE));
+            // 最大线程数 + 队列满时由提交线程执行的1个
+            assertTrue(peak <= ExecutorType.STORAGE.getMaxPoolSize() + 1);
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    public void virtualThreads() throws Exception {
+        ExecutorConfig config = new ExecutorConfig();
+        config.setVirtualThreads(true);
+        ExecutorRegistry registry = new ExecutorRegistry(config);
+        try {
+            Assumptions.assumeTrue(registry.isVirtualThreads(), "当前JDK不支持虚拟线程");
+            int peak = measure("虚拟线程", registry.executor(ExecutorType.STORAGE));
+            assertTrue(peak > ExecutorType.STORAGE.getMaxPoolSize() + 1);
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    private int measure(String mode, Executor executor) {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(IO_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).join();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("{}：请求{}，最大在途{}，总耗时{}ms，吞吐{}/s", mode, REQUESTS, peak.get(), millis, REQUESTS * 1000L / Math.max(millis, 1));
+        return peak.get();
+    }
+}
@@ -0,0 +1,99 @@
+package com.ggk911.springtest01.util.mail;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.RandomUtil;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.mail.BodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+import javax.mail.internet.MimeUtility;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EncodedAttachment测试(GreenMail进程内SMTP)
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-06 15:10
+ **/
+public class EncodedAttachmentTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private PooledJavaMailSender mailSender;
+
+    @BeforeEach
+    public void setUp() {
+        mailSender = new PooledJavaMailSender();
+        mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender.setDefaultEncoding("UTF-8");
+        mailSender.initPool(2, 60_000, 10_000, 5_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mailSender.destroy();
+    }
+
+    /**
+     * 内存与临时文件两种方式，多封邮件共用编码结果，收到的附件与原文一致
+     */
+    @Test
+    public void sharedAcrossMessages() throws Exception {
+        byte[] pdf = RandomUtil.randomBytes(100 * 1024);
+        for (int threshold : new int[]{EncodedAttachment.DEFAULT_MEMORY_THRESHOLD, 1024}) {
+            greenMail.reset();
+            try (EncodedAttachment attachment = EncodedAttachment.encode(AttachmentSources.bytes(pdf, "合同.pdf"), "合同.pdf", threshold)) {
+                for (int i = 0; i < 3; i++) {
+                    MailMessage message = new MailMessage("receiver" + i + "@localhost", "测试邮件", "内容", false, attachment, "合同.pdf");
+                    mailSender.send(message.toMimeMessage(mailSender, "sender@localhost"));
+                }
+            }
+            MimeMessage[] received = greenMail.getReceivedMessages();
+            assertEquals(3, received.length);
+            for (MimeMessage message : received) {
+                BodyPart part = ((MimeMultipart) message.getContent()).getBodyPart(1);
+                assertEquals("合同.pdf", MimeUtility.decodeText(part.getFileName()));
+                assertArrayEquals(pdf, IoUtil.readBytes(part.getInputStream()));
+            }
+        }
+    }
+
+    /**
+     * 约120个汉字的长文件名拆分续行，收件端还原文件名，且每行不超过SMTP行长限制(998字节)
+     */
+    @Test
+    public void longFileNameFolded() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 120) {
+            sb.append("关于二〇二四年度电子合同签署与归档的补充说明");
+        }
+        String fileName = sb.substring(0, 120) + ".pdf";
+        byte[] pdf = RandomUtil.randomBytes(1024);
+        greenMail.reset();
+        try (EncodedAttachment attachment = EncodedAttachment.encode(AttachmentSources.bytes(pdf, fileName), fileName)) {
+            MailMessage message = new MailMessage("receiver@localhost", "测试邮件", "内容", false, attachment, fileName);
+            mailSender.send(message.toMimeMessage(mailSender, "sender@localhost"));
+        }
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        received.writeTo(raw);
+        for (String line : raw.toString("US-ASCII").split("\r\n")) {
+            assertTrue(line.length() <= 998, line);
+        }
+        BodyPart part = ((MimeMultipart) received.getContent()).getBodyPart(1);
+        assertEquals(fileName, MimeUtility.decodeText(part.getFileName()));
+        assertArrayEquals(pdf, IoUtil.readBytes(part.getInputStream()));
+    }
+}
@@ -0,0 +1,113 @@
+package com.ggk911.springtest01.util.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PooledJavaMailSender测试(GreenMail进程内SMTP)
+ *
+ * @author TangHaoKai
+ * @version V1.0 2024-02-01 14:10
+ **/
+public class PooledJavaMailSenderTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private PooledJavaMailSender mailSender;
+
+    @BeforeEach
+    public void setUp() {
+        mailSender = new PooledJavaMailSender();
+        mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender.setDefaultEncoding("UTF-8");
+        mailSender.initPool(2, 60_000, 10_000, 5_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mailSender.destroy();
+    }
+
+    /**
+     * 顺序发送只建立一个连接
+     */
+    @Test
+    public void reuseConnection() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mailSender.send(newMessage(i));
+        }
+        assertEquals(5, greenMail.getReceivedMessages().length);
+        SmtpTransportPool pool = mailSender.getTransportPool();
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(0, pool.getActive());
+        assertEquals(1, pool.getIdle());
+        assertEquals(5, pool.getSendCount());
+        assertEquals(0, pool.getFailureCount());
+    }
+
+    /**
+     * 并发发送连接数不超过上限
+     */
+    @Test
+    public void concurrentSendBounded() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    mailSender.send(newMessage(index));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(30, greenMail.getReceivedMessages().length);
+        SmtpTransportPool pool = mailSender.getTransportPool();
+        assertTrue(pool.getCreatedCount() <= 2);
+        assertEquals(0, pool.getActive());
+    }
+
+    /**
+     * 服务端断开后自动重连
+     */
+    @Test
+    public void reconnectAfterServerRestart() throws Exception {
+        mailSender.send(newMessage(0));
+        greenMail.reset();
+        mailSender.send(newMessage(1));
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals(0, mailSender.getTransportPool().getFailureCount());
+    }
+
+    private MimeMessage newMessage(int index) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setFrom("sender@localhost");
+        helper.setTo("receiver@localhost");
+        helper.setSubject("测试邮件" + index);
+        helper.setText("内容" + index);
+        return message;
+    }
+}